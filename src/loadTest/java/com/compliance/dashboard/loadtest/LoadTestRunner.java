@@ -0,0 +1,197 @@
+package com.compliance.dashboard.loadtest;
+
+import com.compliance.dashboard.ComplianceDashboardApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end load test: boots the dashboard against the {@link UpstreamSimulator}
+ * and drives the compliance endpoints, reporting p50/p99 latency and the number
+ * of upstream calls each scenario caused.
+ *
+ * Settings ({@code loadtest.*} system properties):
+ * <ul>
+ *   <li>{@code loadtest.requests} - measured requests per scenario (default 50)</li>
+ *   <li>{@code loadtest.concurrency} - concurrent clients (default 4)</li>
+ *   <li>{@code loadtest.scenarios} - comma-separated request paths</li>
+ *   <li>{@code loadtest.app.*} - extra properties passed to the dashboard</li>
+ * </ul>
+ * Simulator settings are described in {@link SimulatorConfig}.
+ */
+public class LoadTestRunner {
+
+    private static final String DEFAULT_SCENARIOS =
+            "/api/compliance?app=APP000,/api/compliance,/api/compliance/summary";
+
+    public static void main(String[] args) throws Exception {
+        int requests = Integer.getInteger("loadtest.requests", 50);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 4);
+        List<String> scenarios = Arrays.asList(System.getProperty("loadtest.scenarios", DEFAULT_SCENARIOS).split(","));
+
+        SimulatorConfig simulatorConfig = new SimulatorConfig();
+        try (UpstreamSimulator simulator = new UpstreamSimulator(simulatorConfig)) {
+            simulator.start();
+            System.out.println("Simulator: " + simulator.baseUrl() + " (" + simulatorConfig + ")");
+
+            ConfigurableApplicationContext context = startApplication(simulator.baseUrl());
+            try {
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+                List<ScenarioResult> results = new ArrayList<>();
+                for (String scenario : scenarios) {
+                    Map<String, Long> before = simulator.counts();
+                    ScenarioResult result = runScenario(client, baseUrl + scenario.trim(), requests, concurrency);
+                    result.path = scenario.trim();
+                    result.upstreamCalls = delta(before, simulator.counts());
+                    results.add(result);
+                }
+                report(results, requests, concurrency);
+            } finally {
+                context.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startApplication(String simulatorUrl) {
+        Map<String, Object> properties = new TreeMap<>();
+        properties.put("server.port", 0);
+        properties.put("vault.uri", simulatorUrl);
+        properties.put("vault.app-role.role-id", "sim-role");
+        properties.put("vault.app-role.secret-id", "sim-secret");
+        properties.put("ocs.base-url", simulatorUrl + "/ocs/%s");
+        // Nothing carries over from earlier runs, so every run starts from the same cold state
+        properties.put("compliance.snapshot.persist", false);
+        properties.put("ocs.image-catalog.enabled", false);
+        properties.put("compliance.refresh.enabled", false);
+        properties.put("logging.level.com.compliance.dashboard", "WARN");
+        properties.put("logging.level.org.springframework.vault", "WARN");
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("loadtest.app."))
+                .forEach(name -> properties.put(name.substring("loadtest.app.".length()), System.getProperty(name)));
+
+        // Passed as command-line arguments so they override application.yml
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(ComplianceDashboardApplication.class).run(args);
+    }
+
+    private static ScenarioResult runScenario(HttpClient client, String url, int requests, int concurrency)
+            throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Accept-Encoding", "gzip")
+                .timeout(Duration.ofMinutes(10))
+                .GET()
+                .build();
+
+        ScenarioResult result = new ScenarioResult();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            AtomicInteger failures = new AtomicInteger();
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() >= 400) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies.add(System.nanoTime() - begin);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            result.elapsedNanos = System.nanoTime() - start;
+            result.failures = failures.get();
+            result.latencies = new ArrayList<>(latencies);
+            Collections.sort(result.latencies);
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    private static Map<String, Long> delta(Map<String, Long> before, Map<String, Long> after) {
+        Map<String, Long> delta = new TreeMap<>();
+        after.forEach((name, value) -> {
+            long diff = value - before.getOrDefault(name, 0L);
+            if (diff != 0) {
+                delta.put(name, diff);
+            }
+        });
+        return delta;
+    }
+
+    private static void report(List<ScenarioResult> results, int requests, int concurrency) {
+        System.out.println();
+        System.out.printf("Load test: %d requests per scenario, concurrency %d%n", requests, concurrency);
+        System.out.printf("%-45s %8s %10s %10s %10s %10s%n", "scenario", "failed", "p50 ms", "p99 ms", "max ms", "req/s");
+        for (ScenarioResult result : results) {
+            System.out.printf("%-45s %8d %10.1f %10.1f %10.1f %10.1f%n",
+                    result.path, result.failures, result.percentile(50), result.percentile(99),
+                    result.percentile(100), result.throughput());
+        }
+
+        TreeSet<String> counters = new TreeSet<>();
+        results.forEach(result -> counters.addAll(result.upstreamCalls.keySet()));
+        System.out.println();
+        System.out.println("Upstream calls per scenario:");
+        System.out.printf("%-45s", "scenario");
+        counters.forEach(counter -> System.out.printf(" %14s", counter));
+        System.out.println();
+        for (ScenarioResult result : results) {
+            System.out.printf("%-45s", result.path);
+            counters.forEach(counter -> System.out.printf(" %14d", result.upstreamCalls.getOrDefault(counter, 0L)));
+            System.out.println();
+        }
+    }
+
+    /**
+     * Latency samples and upstream call counts for one scenario.
+     */
+    private static class ScenarioResult {
+        String path;
+        int failures;
+        long elapsedNanos;
+        List<Long> latencies;
+        Map<String, Long> upstreamCalls;
+
+        double percentile(double p) {
+            if (latencies.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p / 100.0 * latencies.size()) - 1;
+            return latencies.get(Math.max(0, Math.min(index, latencies.size() - 1))) / 1_000_000.0;
+        }
+
+        double throughput() {
+            return elapsedNanos > 0 ? latencies.size() / (elapsedNanos / 1_000_000_000.0) : 0;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.compliance.dashboard.loadtest;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Settings for the upstream simulator, read from {@code sim.*} system properties.
+ */
+public class SimulatorConfig {
+
+    /** Port to listen on; 0 picks a free port. */
+    final int port = Integer.getInteger("sim.port", 0);
+
+    /** Number of apps exposed through the Vault KV read. */
+    final int apps = Integer.getInteger("sim.apps", 10);
+
+    /** Apps sharing one OCS account (1 = every app has its own account). */
+    final int appsPerAccount = Integer.getInteger("sim.apps-per-account", 1);
+
+    /** Servers per (account, region). */
+    final int serversPerRegion = Integer.getInteger("sim.servers-per-region", 200);
+
+    /** Distinct image IDs per (account, region). */
+    final int distinctImages = Integer.getInteger("sim.distinct-images", 40);
+
+    /** Median upstream latency; latencies follow a log-normal distribution. */
+    final double latencyMedianMs = Double.parseDouble(System.getProperty("sim.latency.median-ms", "20"));
+
+    /** Log-normal shape parameter; 0 gives a constant latency. */
+    final double latencySigma = Double.parseDouble(System.getProperty("sim.latency.sigma", "0.6"));
+
+    /** Extra latency factor for /servers/detail relative to other endpoints. */
+    final double serversLatencyFactor = Double.parseDouble(System.getProperty("sim.latency.servers-factor", "5"));
+
+    /** Probability of answering an OCS call with 500. */
+    final double errorRate = Double.parseDouble(System.getProperty("sim.error-rate", "0"));
+
+    /** Probability of answering an OCS call with 429. */
+    final double throttleRate = Double.parseDouble(System.getProperty("sim.throttle-rate", "0"));
+
+    /** Retry-After seconds sent with 429 responses; negative omits the header. */
+    final int retryAfterSeconds = Integer.getInteger("sim.retry-after-seconds", 1);
+
+    /** Bytes of filler metadata added to every server entry. */
+    final int serverPaddingBytes = Integer.getInteger("sim.server-padding-bytes", 512);
+
+    /** Apps (comma-separated names, e.g. APP001) whose IAMaaS token requests fail with 503. */
+    final Set<String> failingApps = Arrays.stream(System.getProperty("sim.failing-apps", "").split(","))
+            .map(String::trim)
+            .filter(app -> !app.isEmpty())
+            .collect(Collectors.toSet());
+
+    /** Accounts (comma-separated numbers, e.g. 0,3) whose servers are re-imaged between listings. */
+    final Set<Integer> churningAccounts = Arrays.stream(System.getProperty("sim.churning-accounts", "").split(","))
+            .map(String::trim)
+            .filter(account -> !account.isEmpty())
+            .map(Integer::valueOf)
+            .collect(Collectors.toSet());
+
+    /** Vault token lease duration in seconds, granted at login and on every renewal. */
+    final int vaultLeaseSeconds = Integer.getInteger("sim.vault.lease-seconds", 3600);
+
+    /** Vault token max TTL in seconds; renewals never extend a token past it. */
+    final int vaultMaxTtlSeconds = Integer.getInteger("sim.vault.max-ttl-seconds", 4 * 3600);
+
+    @Override
+    public String toString() {
+        return String.format("apps=%d, appsPerAccount=%d, serversPerRegion=%d, distinctImages=%d, "
+                        + "latencyMedianMs=%.1f, latencySigma=%.2f, errorRate=%.3f, throttleRate=%.3f, "
+                        + "serverPaddingBytes=%d, failingApps=%s, churningAccounts=%s, vaultLeaseSeconds=%d, "
+                        + "vaultMaxTtlSeconds=%d",
+                apps, appsPerAccount, serversPerRegion, distinctImages, latencyMedianMs, latencySigma,
+                errorRate, throttleRate, serverPaddingBytes, failingApps, churningAccounts, vaultLeaseSeconds,
+                vaultMaxTtlSeconds);
+    }
+}
@@ -0,0 +1,226 @@
+package com.compliance.dashboard.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Startup benchmark: launches the packaged dashboard repeatedly against the
+ * {@link UpstreamSimulator} and reports how long each build takes until it
+ * serves {@code /api/health}, how long the first compliance check then takes,
+ * and the process's resident memory at both points.
+ *
+ * Builds compared, when present:
+ * <ul>
+ *   <li>{@code jvm} - the bootable JAR</li>
+ *   <li>{@code jvm-aot} - the same JAR with {@code -Dspring.aot.enabled=true};
+ *       only with {@code benchmark.aot=true}, as the JAR must have been built
+ *       with {@code -Pnative}</li>
+ *   <li>{@code native} - the native executable</li>
+ * </ul>
+ *
+ * Settings ({@code benchmark.*} system properties):
+ * <ul>
+ *   <li>{@code benchmark.runs} - launches per build (default 5)</li>
+ *   <li>{@code benchmark.jar} - bootable JAR (default build/libs/compliance-dashboard.jar)</li>
+ *   <li>{@code benchmark.native} - native executable (default build/native/nativeCompile/compliance-dashboard)</li>
+ *   <li>{@code benchmark.aot} - also run the JAR in AOT mode (default false)</li>
+ *   <li>{@code benchmark.port} - port the dashboard listens on (default 18080)</li>
+ *   <li>{@code benchmark.timeout} - seconds to wait for a launch to come up (default 120)</li>
+ * </ul>
+ * Simulator settings are described in {@link SimulatorConfig}.
+ */
+public class StartupBenchmark {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("benchmark.runs", 5);
+        int port = Integer.getInteger("benchmark.port", 18080);
+        Duration timeout = Duration.ofSeconds(Integer.getInteger("benchmark.timeout", 120));
+        File jar = new File(System.getProperty("benchmark.jar", "build/libs/compliance-dashboard.jar"));
+        File nativeImage = new File(System.getProperty("benchmark.native",
+                "build/native/nativeCompile/compliance-dashboard"));
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Map<String, List<String>> builds = new LinkedHashMap<>();
+        if (jar.isFile()) {
+            builds.put("jvm", List.of(java, "-jar", jar.getPath()));
+            if (Boolean.getBoolean("benchmark.aot")) {
+                builds.put("jvm-aot", List.of(java, "-Dspring.aot.enabled=true", "-jar", jar.getPath()));
+            }
+        } else {
+            System.out.println("No JAR at " + jar + ", run ./gradlew bootJar first");
+        }
+        if (nativeImage.canExecute()) {
+            builds.put("native", List.of(nativeImage.getPath()));
+        } else {
+            System.out.println("No native executable at " + nativeImage + ", build it with ./gradlew nativeCompile -Pnative");
+        }
+        if (builds.isEmpty()) {
+            System.exit(1);
+        }
+
+        SimulatorConfig simulatorConfig = new SimulatorConfig();
+        Map<String, List<Launch>> results = new LinkedHashMap<>();
+        try (UpstreamSimulator simulator = new UpstreamSimulator(simulatorConfig)) {
+            simulator.start();
+            System.out.println("Simulator: " + simulator.baseUrl() + " (" + simulatorConfig + ")");
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+            for (Map.Entry<String, List<String>> build : builds.entrySet()) {
+                List<Launch> launches = new ArrayList<>();
+                for (int i = 0; i < runs; i++) {
+                    List<String> command = new ArrayList<>(build.getValue());
+                    command.addAll(applicationArgs(simulator.baseUrl(), port));
+                    Launch launch = launch(client, command, port, timeout);
+                    System.out.printf("%-8s run %d: ready in %d ms, first check in %d ms%n",
+                            build.getKey(), i + 1, launch.readyMillis, launch.firstCheckMillis);
+                    launches.add(launch);
+                }
+                results.put(build.getKey(), launches);
+            }
+        }
+        report(results, runs);
+        System.exit(0);
+    }
+
+    private static List<String> applicationArgs(String simulatorUrl, int port) {
+        return Arrays.asList(
+                "--server.port=" + port,
+                "--vault.uri=" + simulatorUrl,
+                "--vault.app-role.role-id=sim-role",
+                "--vault.app-role.secret-id=sim-secret",
+                "--ocs.base-url=" + simulatorUrl + "/ocs/%s",
+                "--compliance.snapshot.persist=false",
+                "--ocs.image-catalog.enabled=false",
+                "--compliance.refresh.enabled=false",
+                "--logging.level.root=WARN");
+    }
+
+    /**
+     * Start one process, wait until it serves requests, check one app, and stop it.
+     */
+    private static Launch launch(HttpClient client, List<String> command, int port, Duration timeout)
+            throws Exception {
+        String baseUrl = "http://localhost:" + port;
+        Path log = Files.createTempFile("startup-benchmark", ".log");
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            Launch launch = new Launch();
+            long start = System.nanoTime();
+            long deadline = start + timeout.toNanos();
+            while (!isUp(client, baseUrl + "/api/health")) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Dashboard did not start: " + String.join(" ", command)
+                            + "\n" + Files.readString(log));
+                }
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            }
+            launch.readyMillis = (System.nanoTime() - start) / 1_000_000;
+            launch.readyRssKb = residentKb(process.pid());
+
+            long begin = System.nanoTime();
+            HttpResponse<Void> response = client.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/api/compliance?app=APP000"))
+                            .timeout(timeout).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("First compliance check returned " + response.statusCode());
+            }
+            launch.firstCheckMillis = (System.nanoTime() - begin) / 1_000_000;
+            launch.checkedRssKb = residentKb(process.pid());
+            return launch;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            Files.deleteIfExists(log);
+        }
+    }
+
+    private static boolean isUp(HttpClient client, String url) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(1)).GET().build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Resident set size from /proc, or -1 where that is not available.
+     */
+    private static long residentKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux
+        }
+        return -1;
+    }
+
+    private static void report(Map<String, List<Launch>> results, int runs) {
+        System.out.println();
+        System.out.printf("Startup benchmark: %d launches per build (median / min)%n", runs);
+        System.out.printf("%-8s %18s %18s %14s %14s%n",
+                "build", "ready ms", "first check ms", "ready RSS MB", "checked RSS MB");
+        results.forEach((build, launches) -> System.out.printf("%-8s %18s %18s %14s %14s%n", build,
+                stats(launches, launch -> launch.readyMillis),
+                stats(launches, launch -> launch.firstCheckMillis),
+                megabytes(launches, launch -> launch.readyRssKb),
+                megabytes(launches, launch -> launch.checkedRssKb)));
+    }
+
+    private static String stats(List<Launch> launches, ToLongFunction<Launch> metric) {
+        List<Long> values = sorted(launches, metric);
+        return values.get(values.size() / 2) + " / " + values.get(0);
+    }
+
+    private static String megabytes(List<Launch> launches, ToLongFunction<Launch> metric) {
+        long median = sorted(launches, metric).get(launches.size() / 2);
+        return median < 0 ? "-" : String.format("%.0f", median / 1024.0);
+    }
+
+    private static List<Long> sorted(List<Launch> launches, ToLongFunction<Launch> metric) {
+        List<Long> values = new ArrayList<>();
+        launches.forEach(launch -> values.add(metric.applyAsLong(launch)));
+        Collections.sort(values);
+        return values;
+    }
+
+    /**
+     * Timings and memory of one launch.
+     */
+    private static class Launch {
+        long readyMillis;
+        long firstCheckMillis;
+        long readyRssKb;
+        long checkedRssKb;
+    }
+}
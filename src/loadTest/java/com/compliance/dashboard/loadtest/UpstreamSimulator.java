@@ -0,0 +1,388 @@
+package com.compliance.dashboard.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Self-contained simulator for the upstream APIs the dashboard calls:
+ * <ul>
+ *   <li>Vault: {@code POST /v1/auth/approle/login}, {@code /v1/auth/token/renew-self} and
+ *       {@code /v1/auth/token/revoke-self}, the KV read and {@code /v1/sys/health}</li>
+ *   <li>IAMaaS: {@code POST /iamaas/token}</li>
+ *   <li>OCS: {@code GET /ocs/{region}/v0/servers/detail} and {@code /ocs/{region}/v0/images/{id}}</li>
+ * </ul>
+ * Point the dashboard at it with {@code vault.uri=<base>} and {@code ocs.base-url=<base>/ocs/%s};
+ * the KV read hands out IAMaaS URLs pointing back at the simulator.
+ * Fleet sizes, latency, error/429 rates and payload sizes come from {@link SimulatorConfig}.
+ */
+public class UpstreamSimulator implements AutoCloseable {
+
+    static final String VAULT_LOGIN = "vault_login";
+    static final String VAULT_RENEW = "vault_renew";
+    static final String VAULT_REVOKE = "vault_revoke";
+    static final String VAULT_READ = "vault_read";
+    static final String VAULT_HEALTH = "vault_health";
+    static final String IAMAAS_TOKEN = "iamaas_token";
+    static final String IAMAAS_ERRORS = "iamaas_errors";
+    static final String OCS_SERVERS = "ocs_servers";
+    static final String OCS_IMAGES = "ocs_images";
+    static final String OCS_THROTTLED = "ocs_throttled";
+    static final String OCS_ERRORS = "ocs_errors";
+
+    private static final String TOKEN_PREFIX = "sim-token-";
+    private static final String VAULT_TOKEN_PREFIX = "sim-vault-token-";
+    private static final String CLIENT_PREFIX = "client-";
+
+    private final SimulatorConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> serverPayloads = new ConcurrentHashMap<>();
+    /** Server listings served for churning accounts. */
+    private final AtomicLong listings = new AtomicLong();
+    private final Map<String, VaultLease> vaultTokens = new ConcurrentHashMap<>();
+    private final AtomicLong vaultTokenSequence = new AtomicLong();
+    private DisposableServer server;
+
+    public UpstreamSimulator(SimulatorConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        UpstreamSimulator simulator = new UpstreamSimulator(new SimulatorConfig());
+        simulator.start();
+        System.out.println("Upstream simulator listening on " + simulator.baseUrl());
+        System.out.println("  " + simulator.config);
+        System.out.println("  vault.uri=" + simulator.baseUrl());
+        System.out.println("  ocs.base-url=" + simulator.baseUrl() + "/ocs/%s");
+        simulator.server.onDispose().block();
+    }
+
+    public void start() {
+        server = HttpServer.create()
+                .port(config.port)
+                .handle(this::dispatch)
+                .bindNow();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.port();
+    }
+
+    /**
+     * Current call counters by endpoint family.
+     */
+    public Map<String, Long> counts() {
+        Map<String, Long> counts = new TreeMap<>();
+        counters.forEach((name, value) -> counts.put(name, value.get()));
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    private Mono<Void> dispatch(HttpServerRequest request, HttpServerResponse response) {
+        String uri = request.uri();
+        int query = uri.indexOf('?');
+        String path = query >= 0 ? uri.substring(0, query) : uri;
+        HttpMethod method = request.method();
+
+        if (method == HttpMethod.POST && path.endsWith("/v1/auth/approle/login")) {
+            count(VAULT_LOGIN);
+            return drain(request).then(delayed(response, HttpResponseStatus.OK, vaultLogin(), 1));
+        }
+        if (method == HttpMethod.POST && path.endsWith("/v1/auth/token/renew-self")) {
+            count(VAULT_RENEW);
+            byte[] renewal = vaultRenew(request.requestHeaders().get("X-Vault-Token"));
+            return drain(request).then(renewal != null
+                    ? delayed(response, HttpResponseStatus.OK, renewal, 1)
+                    : delayed(response, HttpResponseStatus.FORBIDDEN, json(Map.of("errors", List.of("permission denied"))), 1));
+        }
+        if (method == HttpMethod.POST && path.endsWith("/v1/auth/token/revoke-self")) {
+            count(VAULT_REVOKE);
+            String token = request.requestHeaders().get("X-Vault-Token");
+            if (token != null) {
+                vaultTokens.remove(token);
+            }
+            return drain(request).then(response.status(HttpResponseStatus.NO_CONTENT).send());
+        }
+        if (method == HttpMethod.GET && path.endsWith("/v1/sys/health")) {
+            count(VAULT_HEALTH);
+            return delayed(response, HttpResponseStatus.OK, json(Map.of("initialized", true, "sealed", false)), 1);
+        }
+        if (method == HttpMethod.GET && path.startsWith("/v1/") && path.contains("/data/")) {
+            count(VAULT_READ);
+            if (!vaultTokenValid(request.requestHeaders().get("X-Vault-Token"))) {
+                return delayed(response, HttpResponseStatus.FORBIDDEN, json(Map.of("errors", List.of("permission denied"))), 1);
+            }
+            return delayed(response, HttpResponseStatus.OK, vaultKv(), 1);
+        }
+        if (method == HttpMethod.POST && path.equals("/iamaas/token")) {
+            count(IAMAAS_TOKEN);
+            String clientId = basicAuthUser(request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION));
+            if (clientId == null) {
+                return drain(request).then(delayed(response, HttpResponseStatus.UNAUTHORIZED, json(Map.of("error", "invalid_client")), 1));
+            }
+            if (config.failingApps.contains(clientId.substring(CLIENT_PREFIX.length()))) {
+                count(IAMAAS_ERRORS);
+                return drain(request).then(delayed(response, HttpResponseStatus.SERVICE_UNAVAILABLE, json(Map.of("error", "unavailable")), 1));
+            }
+            return drain(request).then(delayed(response, HttpResponseStatus.OK, json(Map.of(
+                    "access_token", TOKEN_PREFIX + clientId,
+                    "token_type", "Bearer",
+                    "expires_in", 3600)), 1));
+        }
+        if (method == HttpMethod.GET && path.startsWith("/ocs/")) {
+            return ocs(request, response, path);
+        }
+        return response.status(HttpResponseStatus.NOT_FOUND).send();
+    }
+
+    private Mono<Void> ocs(HttpServerRequest request, HttpServerResponse response, String path) {
+        String[] parts = path.split("/");
+        // ["", "ocs", region, "v0", resource, ...]
+        if (parts.length < 5) {
+            return response.status(HttpResponseStatus.NOT_FOUND).send();
+        }
+        String region = parts[2];
+        boolean servers = parts.length == 6 && parts[4].equals("servers") && parts[5].equals("detail");
+        boolean image = parts.length == 6 && parts[4].equals("images");
+        if (!servers && !image) {
+            return response.status(HttpResponseStatus.NOT_FOUND).send();
+        }
+        count(servers ? OCS_SERVERS : OCS_IMAGES);
+
+        Integer account = accountForToken(request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION));
+        if (account == null) {
+            return delayed(response, HttpResponseStatus.UNAUTHORIZED, json(Map.of("error", "invalid_token")), 1);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < config.throttleRate) {
+            count(OCS_THROTTLED);
+            if (config.retryAfterSeconds >= 0) {
+                response.header(HttpHeaderNames.RETRY_AFTER, String.valueOf(config.retryAfterSeconds));
+            }
+            return delayed(response, HttpResponseStatus.TOO_MANY_REQUESTS, json(Map.of("error", "rate limited")), 1);
+        }
+        if (random.nextDouble() < config.errorRate) {
+            count(OCS_ERRORS);
+            return delayed(response, HttpResponseStatus.INTERNAL_SERVER_ERROR, json(Map.of("error", "simulated failure")), 1);
+        }
+
+        if (servers) {
+            byte[] payload = config.churningAccounts.contains(account)
+                    ? serverList(account, region, listings.incrementAndGet())
+                    : serverPayloads.computeIfAbsent(account + "|" + region, k -> serverList(account, region, 0));
+            return delayed(response, HttpResponseStatus.OK, payload, config.serversLatencyFactor);
+        }
+        return delayed(response, HttpResponseStatus.OK, imageDetail(parts[5]), 1);
+    }
+
+    private byte[] vaultLogin() {
+        String token = VAULT_TOKEN_PREFIX + vaultTokenSequence.incrementAndGet();
+        long now = System.currentTimeMillis();
+        VaultLease lease = new VaultLease(now + config.vaultMaxTtlSeconds * 1000L,
+                Math.min(now + config.vaultLeaseSeconds * 1000L, now + config.vaultMaxTtlSeconds * 1000L));
+        vaultTokens.put(token, lease);
+        return json(Map.of("auth", Map.of(
+                "client_token", token,
+                "lease_duration", lease.remainingSeconds(now),
+                "renewable", true)));
+    }
+
+    /**
+     * Extend a token's lease, capped at its max TTL.
+     *
+     * @return Renewal response, or null if the token is unknown or expired
+     */
+    private byte[] vaultRenew(String token) {
+        if (!vaultTokenValid(token)) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        VaultLease lease = vaultTokens.computeIfPresent(token, (t, current) -> new VaultLease(current.maxExpiresAt,
+                Math.min(now + config.vaultLeaseSeconds * 1000L, current.maxExpiresAt)));
+        if (lease == null) {
+            return null;
+        }
+        return json(Map.of("auth", Map.of(
+                "client_token", token,
+                "lease_duration", lease.remainingSeconds(now),
+                "renewable", true)));
+    }
+
+    private boolean vaultTokenValid(String token) {
+        VaultLease lease = token != null ? vaultTokens.get(token) : null;
+        if (lease == null) {
+            return false;
+        }
+        if (lease.expiresAt <= System.currentTimeMillis()) {
+            vaultTokens.remove(token);
+            return false;
+        }
+        return true;
+    }
+
+    private byte[] vaultKv() {
+        Map<String, Object> apps = new LinkedHashMap<>();
+        for (int i = 0; i < config.apps; i++) {
+            String app = appName(i);
+            Map<String, Object> appConfig = new LinkedHashMap<>();
+            appConfig.put("account_id", "account-" + (i / Math.max(1, config.appsPerAccount)));
+            appConfig.put("client_id", CLIENT_PREFIX + app);
+            appConfig.put("client_secret", "secret-" + app);
+            appConfig.put("iamaas_url", baseUrl() + "/iamaas/token");
+            appConfig.put("sgcp_iamaas_scopes", "ocs:read");
+            apps.put(app, appConfig);
+        }
+        return json(Map.of("data", Map.of("data", apps)));
+    }
+
+    /**
+     * @param generation Listings so far of churning accounts; each one re-images one more server
+     */
+    private byte[] serverList(int account, String region, long generation) {
+        String padding = "x".repeat(Math.max(0, config.serverPaddingBytes));
+        List<Map<String, Object>> servers = new ArrayList<>(config.serversPerRegion);
+        for (int i = 0; i < config.serversPerRegion; i++) {
+            Map<String, Object> server = new LinkedHashMap<>();
+            server.put("id", String.format("srv-%d-%s-%06d", account, region, i));
+            server.put("name", String.format("acct%d-%s-vm%06d", account, region, i));
+            server.put("status", "ACTIVE");
+            long image = i < generation ? i * 7 + account + generation : i * 7 + account;
+            server.put("image", Map.of("id", imageId(region, (int) (image % config.distinctImages))));
+            if (!padding.isEmpty()) {
+                server.put("metadata", Map.of("padding", padding));
+            }
+            servers.add(server);
+        }
+        return json(Map.of("servers", servers));
+    }
+
+    /**
+     * Image names are derived from the image index: most follow the
+     * {@code _YYYY_wWW} convention at an age of 0-3 weeks, a few are unparsable.
+     */
+    private byte[] imageDetail(String imageId) {
+        int index = Math.abs(imageId.hashCode());
+        String name;
+        if (index % 13 == 12) {
+            name = "custom_image_" + imageId;
+        } else {
+            LocalDate built = LocalDate.now().minusWeeks(index % 4);
+            name = String.format("ocs_sim_RHEL_9_%d_w%02d_%s",
+                    built.get(IsoFields.WEEK_BASED_YEAR), built.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR), imageId);
+        }
+        return json(Map.of("image", Map.of("id", imageId, "name", name)));
+    }
+
+    private Mono<Void> delayed(HttpServerResponse response, HttpResponseStatus status, byte[] body, double latencyFactor) {
+        Duration latency = sampleLatency(latencyFactor);
+        Mono<Void> send = response.status(status)
+                .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                .header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(body.length))
+                .sendByteArray(Mono.just(body))
+                .then();
+        return latency.isZero() ? send : Mono.delay(latency).then(send);
+    }
+
+    private Duration sampleLatency(double factor) {
+        if (config.latencyMedianMs <= 0) {
+            return Duration.ZERO;
+        }
+        double sample = config.latencyMedianMs * factor
+                * Math.exp(config.latencySigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) (sample * 1_000_000));
+    }
+
+    private Mono<Void> drain(HttpServerRequest request) {
+        return request.receive().then();
+    }
+
+    private Integer accountForToken(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer " + TOKEN_PREFIX + CLIENT_PREFIX)) {
+            return null;
+        }
+        String app = authorization.substring(("Bearer " + TOKEN_PREFIX + CLIENT_PREFIX).length());
+        try {
+            return appIndex(app) / Math.max(1, config.appsPerAccount);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String basicAuthUser(String authorization) {
+        if (authorization == null || !authorization.startsWith("Basic ")) {
+            return null;
+        }
+        String decoded = new String(Base64.getDecoder().decode(authorization.substring(6)), StandardCharsets.UTF_8);
+        int colon = decoded.indexOf(':');
+        return colon > 0 ? decoded.substring(0, colon) : null;
+    }
+
+    static String appName(int index) {
+        return String.format("APP%03d", index);
+    }
+
+    private static int appIndex(String appName) {
+        return Integer.parseInt(appName.substring(3));
+    }
+
+    private static String imageId(String region, int index) {
+        return "img-" + region + "-" + index;
+    }
+
+    /**
+     * Expiry of an issued Vault token, in epoch milliseconds.
+     */
+    private static final class VaultLease {
+        final long maxExpiresAt;
+        final long expiresAt;
+
+        VaultLease(long maxExpiresAt, long expiresAt) {
+            this.maxExpiresAt = maxExpiresAt;
+            this.expiresAt = expiresAt;
+        }
+
+        long remainingSeconds(long now) {
+            return Math.max(0, (expiresAt - now) / 1000);
+        }
+    }
+
+    private void count(String counter) {
+        counters.computeIfAbsent(counter, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private byte[] json(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize simulator response", e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.compliance.dashboard.admission;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for one kind of expensive request, adjusted to observed
+ * latency, with a bounded queue of waiting requests.
+ *
+ * After each request the limit moves towards
+ * {@code limit * gradient}, with {@code gradient = clamp(tolerance * longLatency / latency, 0.5, 1)},
+ * plus {@code sqrt(limit)} when the gradient is 1: while latency stays within
+ * tolerance of its long-term average the limit grows by about sqrt(limit), and
+ * when requests slow down (upstreams saturating, scans competing) it shrinks,
+ * down to {@code minLimit}. Growth only applies within tolerance, so a slow
+ * request lowers even a small limit. Requests beyond the limit
+ * wait up to {@code maxWait} in a queue of at most {@code queueSize}; the rest
+ * are rejected at once.
+ */
+class AdaptiveConcurrencyLimit {
+
+    /** Latency may grow this much over its long-term average before the limit shrinks. */
+    private static final double TOLERANCE = 1.5;
+    /** Weight of a new limit estimate. */
+    private static final double SMOOTHING = 0.2;
+    /** Samples averaged into the long-term latency. */
+    private static final int LONG_WINDOW = 50;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueSize;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitFreed = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double longLatencyNanos;
+
+    AdaptiveConcurrencyLimit(int minLimit, int maxLimit, int queueSize, Duration maxWait) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.queueSize = queueSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.limit = this.maxLimit;
+    }
+
+    /**
+     * Take a permit, waiting in the queue if the limit is reached.
+     *
+     * @return Whether the request was admitted; false if the queue is full or the wait timed out
+     */
+    boolean acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (waiting >= queueSize) {
+                return false;
+            }
+            waiting++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = permitFreed.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return a permit and adjust the limit to the request's latency.
+     */
+    void release(long latencyNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            update(Math.max(1, latencyNanos));
+            permitFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seconds a rejected client should wait: the time for the queued requests
+     * to drain at the current limit and average latency, 1 to 300.
+     */
+    long retryAfterSeconds() {
+        lock.lock();
+        try {
+            double drainNanos = longLatencyNanos * (waiting + 1) / Math.max(1, (int) limit);
+            return Math.max(1, Math.min(300, (long) Math.ceil(drainNanos / TimeUnit.SECONDS.toNanos(1))));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long latencyNanos) {
+        if (longLatencyNanos == 0) {
+            longLatencyNanos = latencyNanos;
+        } else {
+            longLatencyNanos += (latencyNanos - longLatencyNanos) / LONG_WINDOW;
+            // Recover quickly once a slow period is over
+            if (longLatencyNanos > 2 * latencyNanos) {
+                longLatencyNanos *= 0.95;
+            }
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatencyNanos / latencyNanos));
+        // Headroom only while latency is within tolerance, or it would outweigh the gradient at small limits
+        double estimate = gradient < 1.0 ? limit * gradient : limit + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + estimate * SMOOTHING));
+    }
+}
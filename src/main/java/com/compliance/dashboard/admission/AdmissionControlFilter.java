@@ -0,0 +1,226 @@
+package com.compliance.dashboard.admission;
+
+import com.compliance.dashboard.service.SnapshotService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control for the compliance endpoints that do upstream work.
+ *
+ * Live single-app checks ({@code checks}) and live multi-app checks, all-apps
+ * scans and exports ({@code scans}) each get an {@link AdaptiveConcurrencyLimit}.
+ * All-apps requests count as scans only while no snapshot has been published,
+ * since they then wait for a scan. When a limit and its queue are full, requests get
+ * a 503 with {@code Retry-After} right away instead of holding a server
+ * thread. Everything else (snapshot reads, health, fleet queries, diffs) is
+ * not limited, and the expensive kinds can never hold more than their limits
+ * plus queues of the server's threads, so the rest stay reserved for them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final SnapshotService snapshotService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${compliance.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${compliance.admission.max-wait:PT2S}")
+    private Duration maxWait;
+
+    @Value("${compliance.admission.checks.min-limit:1}")
+    private int checksMinLimit;
+
+    @Value("${compliance.admission.checks.max-limit:16}")
+    private int checksMaxLimit;
+
+    @Value("${compliance.admission.checks.queue-size:32}")
+    private int checksQueueSize;
+
+    @Value("${compliance.admission.scans.min-limit:1}")
+    private int scansMinLimit;
+
+    @Value("${compliance.admission.scans.max-limit:4}")
+    private int scansMaxLimit;
+
+    @Value("${compliance.admission.scans.queue-size:8}")
+    private int scansQueueSize;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int serverThreads;
+
+    private AdaptiveConcurrencyLimit checks;
+    private AdaptiveConcurrencyLimit scans;
+    private final Map<AdaptiveConcurrencyLimit, Counter> rejected = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        checks = register("checks", new AdaptiveConcurrencyLimit(checksMinLimit, checksMaxLimit, checksQueueSize, maxWait));
+        scans = register("scans", new AdaptiveConcurrencyLimit(scansMinLimit, scansMaxLimit, scansQueueSize, maxWait));
+        int expensiveThreads = checksMaxLimit + checksQueueSize + scansMaxLimit + scansQueueSize;
+        if (enabled && expensiveThreads >= serverThreads) {
+            log.warn("Admission limits allow {} expensive requests at once, leaving none of the {} server threads "
+                    + "for cheap endpoints", expensiveThreads, serverThreads);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimit limit = limitFor(request);
+        if (limit == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        boolean admitted;
+        try {
+            admitted = limit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            reject(limit, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                limit.release(System.nanoTime() - start);
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streamed responses keep their permit until the stream ends
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * Limit of an expensive request, or null for requests that are not limited.
+     */
+    private AdaptiveConcurrencyLimit limitFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/api/compliance/export")) {
+            return scans;
+        }
+        boolean debug = "true".equalsIgnoreCase(request.getParameter("debug"));
+        if (path.equals("/api/compliance")) {
+            String apps = request.getParameter("apps");
+            if ("POST".equals(request.getMethod()) || (apps != null && !apps.isEmpty())) {
+                return scans;
+            }
+            String app = request.getParameter("app");
+            if (app != null && !app.isEmpty()) {
+                return checks;
+            }
+            return debug || snapshotService.getCurrent() == null ? scans : null;
+        }
+        if (path.equals("/api/compliance/summary")) {
+            return debug || snapshotService.getCurrent() == null ? scans : null;
+        }
+        return null;
+    }
+
+    private void reject(AdaptiveConcurrencyLimit limit, HttpServletResponse response) throws IOException {
+        rejected.get(limit).increment();
+        long retryAfter = limit.retryAfterSeconds();
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Too many compliance checks in progress");
+        errorResponse.put("message", "Retry after " + retryAfter + " seconds");
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private AdaptiveConcurrencyLimit register(String kind, AdaptiveConcurrencyLimit limit) {
+        Gauge.builder("compliance.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("kind", kind)
+                .register(meterRegistry);
+        Gauge.builder("compliance.admission.in_flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Admitted requests in progress")
+                .tag("kind", kind)
+                .register(meterRegistry);
+        Gauge.builder("compliance.admission.queued", limit, AdaptiveConcurrencyLimit::getWaiting)
+                .description("Requests waiting for admission")
+                .tag("kind", kind)
+                .register(meterRegistry);
+        rejected.put(limit, Counter.builder("compliance.admission.rejected")
+                .description("Requests rejected with 503 because the limit and queue were full")
+                .tag("kind", kind)
+                .register(meterRegistry));
+        return limit;
+    }
+
+    /**
+     * Releases the permit of an async request when it ends, however it ends.
+     */
+    private static class ReleasingListener implements AsyncListener {
+        private final Runnable release;
+
+        ReleasingListener(Runnable release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.compliance.dashboard.client;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -15,10 +16,16 @@ import reactor.util.retry.Retry;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Client for obtaining OAuth tokens from IAMaaS.
+ * Requests are admitted by the {@link UpstreamScheduler} in the caller's priority
+ * and recorded into the caller's {@link UpstreamTrace}, if any; retries included,
+ * they are bounded by the caller's {@link UpstreamDeadline}, if any.
  */
 @Slf4j
 @Component
@@ -26,6 +33,10 @@ import java.util.Map;
 public class IamAasClient {
 
     private final WebClient webClient;
+    private final UpstreamScheduler scheduler;
+    
+    /** Token endpoints requested so far, for health probing. */
+    private final Set<String> knownTokenUrls = ConcurrentHashMap.newKeySet();
     
     private static final int MAX_RETRIES = 5;
     private static final Duration RETRY_DELAY = Duration.ofSeconds(120);
@@ -42,6 +53,7 @@ public class IamAasClient {
      */
     public String getAccessToken(String iamaasUrl, String clientId, String clientSecret, String scope) {
         log.info("Requesting access token from IAMaaS: {}", iamaasUrl);
+        knownTokenUrls.add(iamaasUrl);
         
         String basicAuth = createBasicAuthHeader(clientId, clientSecret);
         
@@ -49,19 +61,27 @@ public class IamAasClient {
         formData.add("grant_type", "client_credentials");
         formData.add("scope", scope);
         
+        UpstreamTrace trace = UpstreamTrace.current();
+        
         try {
-            Map<String, Object> response = webClient.post()
+            Mono<Map<String, Object>> request = UpstreamTrace.traced(trace, webClient.post()
                     .uri(iamaasUrl)
                     .header(HttpHeaders.AUTHORIZATION, basicAuth)
                     .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                     .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                     .body(BodyInserters.fromFormData(formData))
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(TIMEOUT)
-                    .retryWhen(Retry.fixedDelay(MAX_RETRIES, RETRY_DELAY)
-                            .doBeforeRetry(signal -> 
-                                log.warn("Retrying IAMaaS token request, attempt: {}", signal.totalRetries() + 1)))
+                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                    .timeout(TIMEOUT));
+            
+            Map<String, Object> response = UpstreamDeadline.bound(
+                    scheduler.schedule(UpstreamScheduler.currentPriority(), request)
+                            .retryWhen(Retry.fixedDelay(MAX_RETRIES, RETRY_DELAY)
+                                    .doBeforeRetry(signal -> {
+                                        UpstreamTrace.recordRetry(trace);
+                                        log.warn("Retrying IAMaaS token request, attempt: {}",
+                                                signal.totalRetries() + 1);
+                                    })))
                     .block();
             
             if (response != null && response.containsKey("access_token")) {
@@ -77,6 +97,13 @@ public class IamAasClient {
         }
     }
 
+    /**
+     * IAMaaS token endpoints this instance has requested tokens from.
+     */
+    public Set<String> getKnownTokenUrls() {
+        return Collections.unmodifiableSet(knownTokenUrls);
+    }
+
     /**
      * Build scope string from account ID and scopes.
      *
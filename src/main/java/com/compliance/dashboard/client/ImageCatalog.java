@@ -0,0 +1,428 @@
+package com.compliance.dashboard.client;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk catalog of OCS image names keyed by region and image ID, kept across
+ * restarts. Image names never change once published, so an entry is written
+ * once and never updated.
+ *
+ * Entries are appended to a memory-mapped data file. A memory-mapped
+ * open-addressing index (linear probing, one hash and record offset per slot)
+ * points into it. Lookups probe the index and compare keys in place, so
+ * nothing is loaded onto the heap at startup and only a found name is copied
+ * out. Writes are serialized; lookups take no lock.
+ *
+ * Records carry a checksum. At startup, records appended after the index was
+ * last updated are re-indexed, and a missing or damaged index is rebuilt from
+ * the data file.
+ *
+ * The data file is locked while open. An instance finding it locked by
+ * another process, such as a replica started from the same directory, runs
+ * without the catalog.
+ */
+@Slf4j
+@Component
+public class ImageCatalog {
+
+    static final String DATA_FILE = "image-catalog.dat";
+    static final String INDEX_FILE = "image-catalog.idx";
+
+    private static final int DATA_MAGIC = 0x494d4744;  // "IMGD"
+    private static final int INDEX_MAGIC = 0x494d4749; // "IMGI"
+    private static final int VERSION = 1;
+    /** Data file header: magic, version. */
+    private static final int DATA_HEADER = 8;
+    /** Index file header: magic, version, capacity, count, data end. */
+    private static final int INDEX_HEADER = 32;
+    /** Record header: key length, value length (unsigned shorts), CRC32 of key and value. */
+    private static final int RECORD_HEADER = 8;
+    private static final int MAX_FIELD = 0xFFFF;
+    private static final int INITIAL_DATA_SIZE = 1 << 20;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    @Value("${ocs.image-catalog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ocs.image-catalog.dir:./data}")
+    private String dir;
+
+    /** Current mappings; replaced when the data file grows or the index is resized. */
+    private volatile Mappings mappings;
+    /** End of the last indexed record; records below it are visible to lookups. */
+    private volatile int dataEnd;
+    private int count;
+    private FileChannel dataChannel;
+    private FileChannel indexChannel;
+
+    /**
+     * Mapped data file and index, replaced together.
+     */
+    private static final class Mappings {
+        final MappedByteBuffer data;
+        final MappedByteBuffer index;
+        final int capacity;
+
+        Mappings(MappedByteBuffer data, MappedByteBuffer index) {
+            this.data = data;
+            this.index = index;
+            this.capacity = index.getInt(8);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        Path directory = Paths.get(dir);
+        try {
+            open(directory);
+            log.info("Opened image catalog in {} with {} image names", directory, count);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image catalog in {} is unavailable, image names will not be kept: {}",
+                    directory, e.getMessage());
+            closeChannels();
+            mappings = null;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        Mappings current = mappings;
+        if (current != null) {
+            current.data.force();
+            current.index.force();
+            mappings = null;
+        }
+        closeChannels();
+    }
+
+    /**
+     * Look up a catalogued image name.
+     *
+     * @return Image name or null if not catalogued
+     */
+    public String get(String region, String imageId) {
+        if (imageId == null) {
+            return null;
+        }
+        // Read the end before the mappings: every record below it is in these mappings
+        int end = dataEnd;
+        Mappings current = mappings;
+        if (current == null) {
+            return null;
+        }
+        byte[] key = key(region, imageId);
+        int hash = hash(key);
+        int mask = current.capacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long entry = current.index.getLong(INDEX_HEADER + slot * 8);
+            if (entry == 0) {
+                return null;
+            }
+            int offset = (int) entry;
+            if ((int) (entry >>> 32) == hash && offset <= end - RECORD_HEADER
+                    && keyEquals(current.data, offset, key)) {
+                byte[] value = new byte[current.data.getShort(offset + 2) & MAX_FIELD];
+                current.data.get(offset + RECORD_HEADER + key.length, value);
+                return new String(value, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /**
+     * Catalog an image name. Null names (failed lookups) and already
+     * catalogued images are ignored.
+     */
+    public synchronized void put(String region, String imageId, String imageName) {
+        if (mappings == null || imageId == null || imageName == null) {
+            return;
+        }
+        byte[] key = key(region, imageId);
+        byte[] value = imageName.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_FIELD || value.length > MAX_FIELD) {
+            return;
+        }
+        int hash = hash(key);
+        try {
+            if (find(mappings, key, hash) >= 0) {
+                return;
+            }
+            int offset = dataEnd;
+            int end = offset + RECORD_HEADER + key.length + value.length;
+            if (end > mappings.data.capacity()) {
+                growData(end);
+            }
+            if ((count + 1) * 2 > mappings.capacity) {
+                resizeIndex(mappings.capacity * 2);
+            }
+            writeRecord(mappings.data, offset, key, value);
+            insert(mappings, hash, offset);
+            count++;
+            writeIndexHeader(mappings.index, end);
+            dataEnd = end;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to catalog image {} in region {}: {}", imageId, region, e.getMessage());
+        }
+    }
+
+    /**
+     * Number of catalogued image names.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    private void open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        dataChannel = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (dataChannel.tryLock() == null) {
+            throw new IOException("in use by another process; give each instance its own ocs.image-catalog.dir");
+        }
+        if (dataChannel.size() < DATA_HEADER) {
+            dataChannel.truncate(0);
+        }
+        MappedByteBuffer data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(dataChannel.size(), INITIAL_DATA_SIZE));
+        if (data.getInt(0) == 0) {
+            data.putInt(0, DATA_MAGIC).putInt(4, VERSION);
+        } else if (data.getInt(0) != DATA_MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException(DATA_FILE + " is not an image catalog of version " + VERSION);
+        }
+
+        Path indexFile = directory.resolve(INDEX_FILE);
+        MappedByteBuffer index = null;
+        int indexedEnd = DATA_HEADER;
+        if (Files.exists(indexFile)) {
+            indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+            if (!validIndex(index, data.capacity())) {
+                log.warn("Rebuilding damaged image catalog index {}", indexFile);
+                indexChannel.close();
+                index = null;
+            } else {
+                count = index.getInt(12);
+                indexedEnd = index.getInt(16);
+            }
+        }
+        if (index == null) {
+            count = 0;
+            index = createIndex(indexFile, INITIAL_CAPACITY);
+        }
+        mappings = new Mappings(data, index);
+        dataEnd = indexedEnd;
+
+        // Index records appended after the index was last written
+        int offset = indexedEnd;
+        int recovered = 0;
+        while (offset <= data.capacity() - RECORD_HEADER) {
+            int keyLength = data.getShort(offset) & MAX_FIELD;
+            int end = offset + RECORD_HEADER + keyLength + (data.getShort(offset + 2) & MAX_FIELD);
+            if (keyLength == 0 || end > data.capacity() || !checksumMatches(data, offset)) {
+                break;
+            }
+            byte[] key = new byte[keyLength];
+            data.get(offset + RECORD_HEADER, key);
+            int hash = hash(key);
+            if (find(mappings, key, hash) < 0) {
+                if ((count + 1) * 2 > mappings.capacity) {
+                    resizeIndex(mappings.capacity * 2);
+                }
+                insert(mappings, hash, offset);
+                count++;
+            }
+            recovered++;
+            offset = end;
+        }
+        writeIndexHeader(mappings.index, offset);
+        dataEnd = offset;
+        if (recovered > 0) {
+            log.info("Indexed {} image catalog records missing from the index", recovered);
+        }
+    }
+
+    private boolean validIndex(MappedByteBuffer index, int dataCapacity) {
+        if (index.capacity() < INDEX_HEADER || index.getInt(0) != INDEX_MAGIC || index.getInt(4) != VERSION) {
+            return false;
+        }
+        int capacity = index.getInt(8);
+        int end = index.getInt(16);
+        return capacity > 0 && Integer.bitCount(capacity) == 1
+                && index.capacity() == INDEX_HEADER + (long) capacity * 8
+                && index.getInt(12) >= 0 && index.getInt(12) < capacity
+                && end >= DATA_HEADER && end <= dataCapacity;
+    }
+
+    /**
+     * Create an empty index at the path, built in a temporary file and moved
+     * into place. The returned mapping stays valid after the move.
+     */
+    private MappedByteBuffer createIndex(Path indexFile, int capacity) throws IOException {
+        Path tmp = Files.createTempFile(indexFile.getParent(), INDEX_FILE, ".tmp");
+        FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    INDEX_HEADER + (long) capacity * 8);
+            index.putInt(0, INDEX_MAGIC).putInt(4, VERSION).putInt(8, capacity);
+            try {
+                Files.move(tmp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+            indexChannel = channel;
+            return index;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    /**
+     * Copy the index into one of the given capacity. Lookups keep using the
+     * old index until the new one is complete.
+     */
+    private void resizeIndex(int capacity) throws IOException {
+        Mappings current = mappings;
+        Path indexFile = Paths.get(dir).resolve(INDEX_FILE);
+        MappedByteBuffer resized = createIndex(indexFile, capacity);
+        Mappings next = new Mappings(current.data, resized);
+        for (int slot = 0; slot < current.capacity; slot++) {
+            long entry = current.index.getLong(INDEX_HEADER + slot * 8);
+            if (entry != 0) {
+                insert(next, (int) (entry >>> 32), (int) entry);
+            }
+        }
+        writeIndexHeader(resized, dataEnd);
+        mappings = next;
+    }
+
+    private void growData(int required) throws IOException {
+        long size = mappings.data.capacity();
+        while (size < required) {
+            size *= 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("image catalog is full");
+        }
+        mappings.data.force();
+        mappings = new Mappings(dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, size), mappings.index);
+    }
+
+    private void writeIndexHeader(MappedByteBuffer index, int end) {
+        index.putInt(12, count).putInt(16, end);
+    }
+
+    private static void writeRecord(MappedByteBuffer data, int offset, byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        crc.update(value);
+        data.put(offset + RECORD_HEADER, key);
+        data.put(offset + RECORD_HEADER + key.length, value);
+        data.putInt(offset + 4, (int) crc.getValue());
+        data.putShort(offset + 2, (short) value.length);
+        // Written last: a non-zero key length marks a complete record
+        data.putShort(offset, (short) key.length);
+    }
+
+    private static boolean checksumMatches(MappedByteBuffer data, int offset) {
+        int length = (data.getShort(offset) & MAX_FIELD) + (data.getShort(offset + 2) & MAX_FIELD);
+        byte[] record = new byte[length];
+        data.get(offset + RECORD_HEADER, record);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue() == data.getInt(offset + 4);
+    }
+
+    /**
+     * Slot holding the key, or -1 if it is not indexed.
+     */
+    private static int find(Mappings mappings, byte[] key, int hash) {
+        int mask = mappings.capacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long entry = mappings.index.getLong(INDEX_HEADER + slot * 8);
+            if (entry == 0) {
+                return -1;
+            }
+            if ((int) (entry >>> 32) == hash && keyEquals(mappings.data, (int) entry, key)) {
+                return slot;
+            }
+        }
+    }
+
+    private static void insert(Mappings mappings, int hash, int offset) {
+        int mask = mappings.capacity - 1;
+        int slot = hash & mask;
+        while (mappings.index.getLong(INDEX_HEADER + slot * 8) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        mappings.index.putLong(INDEX_HEADER + slot * 8, ((long) hash << 32) | (offset & 0xFFFFFFFFL));
+    }
+
+    private static boolean keyEquals(MappedByteBuffer data, int offset, byte[] key) {
+        if ((data.getShort(offset) & MAX_FIELD) != key.length) {
+            return false;
+        }
+        int start = offset + RECORD_HEADER;
+        for (int i = 0; i < key.length; i++) {
+            if (data.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] key(String region, String imageId) {
+        return (region + '\0' + imageId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * FNV-1a with a final avalanche, so nearby IDs spread over the table.
+     */
+    private static int hash(byte[] key) {
+        int h = 0x811c9dc5;
+        for (byte b : key) {
+            h = (h ^ (b & 0xFF)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private void closeChannels() {
+        try {
+            if (dataChannel != null) {
+                dataChannel.close();
+            }
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close image catalog: {}", e.getMessage());
+        }
+        dataChannel = null;
+        indexChannel = null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.compliance.dashboard.client;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window of the most recent latency samples, for percentile estimates.
+ */
+public class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    /**
+     * Record a latency sample in nanoseconds, evicting the oldest when full.
+     */
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * Number of samples currently in the window.
+     */
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Latency percentile over the window, in nanoseconds.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return The percentile, or -1 if the window is empty
+     */
+    public long percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -2,18 +2,33 @@ package com.compliance.dashboard.client;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * Client for interacting with OCS APIs.
+ * All calls are admitted by the {@link UpstreamScheduler} in the caller's
+ * priority and then go through the shared per-region {@link OcsRateLimiter};
+ * slow calls may be hedged according to {@link OcsHedgingPolicy}.
+ * Requests, retries and hedges are recorded into the caller's {@link UpstreamTrace}, if any,
+ * and bounded, retries included, by the caller's {@link UpstreamDeadline}, if any.
  */
 @Slf4j
 @Component
@@ -21,10 +36,23 @@ import java.util.Map;
 public class OcsApiClient {
 
     private final WebClient webClient;
+    private final OcsRateLimiter rateLimiter;
+    private final OcsHedgingPolicy hedgingPolicy;
+    private final UpstreamScheduler scheduler;
+
+    @Value("${ocs.rate-limit.max-throttle-retries:10}")
+    private int maxThrottleRetries;
+
+    @Value("${ocs.base-url:https://ocs.eu-fr-%s.cloud.socgen}")
+    private String baseUrlTemplate;
     
     private static final int MAX_RETRIES = 5;
     private static final Duration RETRY_DELAY = Duration.ofSeconds(120);
     private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final String OP_SERVERS = "servers";
+    private static final String OP_IMAGES = "images";
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT =
+            new ParameterizedTypeReference<>() {};
 
     /**
      * Fetch server details from OCS API for a specific region.
@@ -36,19 +64,17 @@ public class OcsApiClient {
     public List<Map<String, Object>> fetchServers(String region, String accessToken) {
         String url = buildServersUrl(region);
         log.info("Fetching servers from: {}", url);
+        UpstreamTrace trace = UpstreamTrace.current();
         
         try {
-            Map<String, Object> response = webClient.get()
-                    .uri(url)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-                    .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(TIMEOUT)
+            Map<String, Object> response = UpstreamDeadline.bound(get(region, OP_SERVERS, url, accessToken)
                     .retryWhen(Retry.fixedDelay(MAX_RETRIES, RETRY_DELAY)
-                            .doBeforeRetry(signal -> 
+                            .filter(e -> !isThrottled(e))
+                            .doBeforeRetry(signal -> {
+                                UpstreamTrace.recordRetry(trace);
                                 log.warn("Retrying servers fetch for region {}, attempt: {}", 
-                                    region, signal.totalRetries() + 1)))
+                                    region, signal.totalRetries() + 1);
+                            })))
                     .block();
             
             if (response != null && response.containsKey("servers")) {
@@ -75,19 +101,17 @@ public class OcsApiClient {
      */
     public String fetchImageName(String region, String imageId, String accessToken) {
         String url = buildImageUrl(region, imageId);
+        UpstreamTrace trace = UpstreamTrace.current();
         
         try {
-            Map<String, Object> response = webClient.get()
-                    .uri(url)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-                    .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(TIMEOUT)
+            Map<String, Object> response = UpstreamDeadline.bound(get(region, OP_IMAGES, url, accessToken)
                     .retryWhen(Retry.fixedDelay(MAX_RETRIES, RETRY_DELAY)
-                            .doBeforeRetry(signal -> 
+                            .filter(e -> !isThrottled(e))
+                            .doBeforeRetry(signal -> {
+                                UpstreamTrace.recordRetry(trace);
                                 log.debug("Retrying image fetch for {}, attempt: {}", 
-                                    imageId, signal.totalRetries() + 1)))
+                                    imageId, signal.totalRetries() + 1);
+                            })))
                     .block();
             
             if (response != null && response.containsKey("image")) {
@@ -103,17 +127,150 @@ public class OcsApiClient {
         }
     }
 
+    /**
+     * Rate-limited, optionally hedged GET against an OCS region.
+     * A 429 feeds back into the limiter and is retried once the limiter allows,
+     * instead of waiting out the fixed retry delay; with the limiter disabled,
+     * the retry waits out the Retry-After.
+     */
+    private Mono<Map<String, Object>> get(String region, String operation, String url, String accessToken) {
+        // Captured on the calling thread; retries and hedges run elsewhere
+        UpstreamScheduler.Priority priority = UpstreamScheduler.currentPriority();
+        UpstreamTrace trace = UpstreamTrace.current();
+        return Mono.defer(() -> {
+                    Duration hedgeDelay = hedgingPolicy.hedgeDelay(region, operation);
+                    if (hedgeDelay == null) {
+                        return attempt(priority, trace, region, operation, url, accessToken, null);
+                    }
+                    // The hedge delay runs from when the primary is sent, not while it waits for a
+                    // scheduler permit or its rate-limit reservation, as latency samples are network time.
+                    // Only a primary still in flight is hedged: once it fails, its error goes through
+                    Sinks.One<Boolean> primarySent = Sinks.one();
+                    Sinks.One<Boolean> primaryDone = Sinks.one();
+                    Mono<Map<String, Object>> primary = attempt(priority, trace, region, operation, url, accessToken,
+                                    () -> primarySent.tryEmitValue(true))
+                            .doFinally(signal -> primaryDone.tryEmitValue(true));
+                    Mono<Map<String, Object>> hedge = primarySent.asMono()
+                            .flatMap(sent -> Mono.delay(hedgeDelay))
+                            .takeUntilOther(primaryDone.asMono())
+                            .filter(tick -> hedgingPolicy.tryHedge(region))
+                            .doOnNext(tick -> UpstreamTrace.recordHedge(trace))
+                            .flatMap(tick -> attempt(priority, trace, region, operation, url, accessToken, null));
+                    // First value wins and cancels the other; if neither yields one, surface the primary error
+                    return Mono.firstWithValue(primary, hedge)
+                            .onErrorResume(NoSuchElementException.class, e -> {
+                                Throwable error = firstError(e);
+                                return error != null ? Mono.error(error) : Mono.empty();
+                            });
+                })
+                .retryWhen(Retry.max(maxThrottleRetries)
+                        .filter(this::isThrottled)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure())
+                        .doBeforeRetryAsync(signal -> {
+                            Duration delay = rateLimiter.throttledRetryDelay(parseRetryAfter(
+                                    ((WebClientResponseException) signal.failure()).getHeaders()));
+                            return delay.isZero() ? Mono.empty() : Mono.delay(delay).then();
+                        })
+                        .doBeforeRetry(signal -> {
+                            UpstreamTrace.recordRetry(trace);
+                            log.debug("Retrying throttled request to region {}, attempt: {}",
+                                    region, signal.totalRetries() + 1);
+                        }));
+    }
+
+    /**
+     * A single scheduled, rate-limited request; successful latencies feed the hedging policy.
+     * The scheduler permit is taken before the rate-limit reservation, so queued
+     * background calls cannot build up rate-limit debt ahead of interactive ones.
+     *
+     * @param onSent Run when the request is sent, after admission and the rate-limit wait; may be null
+     */
+    private Mono<Map<String, Object>> attempt(UpstreamScheduler.Priority priority, UpstreamTrace trace, String region,
+                              String operation, String url, String accessToken, Runnable onSent) {
+        return scheduler.schedule(priority, Mono.defer(() -> {
+            Mono<Map<String, Object>> call = UpstreamTrace.traced(trace, Mono.defer(() -> {
+                if (onSent != null) {
+                    onSent.run();
+                }
+                long start = System.nanoTime();
+                return webClient.get()
+                        .uri(url)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                        .retrieve()
+                        .bodyToMono(JSON_OBJECT)
+                        .timeout(TIMEOUT)
+                        .doOnSuccess(response -> {
+                            rateLimiter.onSuccess(region);
+                            hedgingPolicy.recordLatency(region, operation, System.nanoTime() - start);
+                        })
+                        .doOnError(WebClientResponseException.TooManyRequests.class, e ->
+                                rateLimiter.onThrottled(region, parseRetryAfter(e.getHeaders())));
+            }));
+            Duration wait = rateLimiter.reserve(region);
+            return wait.isZero() ? call : Mono.delay(wait).then(call);
+        }));
+    }
+
+    /**
+     * First failure among the sources of a {@link Mono#firstWithValue} that
+     * yielded no value, in source order, or null if they all completed empty.
+     */
+    private static Throwable firstError(NoSuchElementException e) {
+        for (Throwable error : Exceptions.unwrapMultiple(e.getCause())) {
+            if (error != null && !(error instanceof NoSuchElementException)) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    private boolean isThrottled(Throwable e) {
+        return e instanceof WebClientResponseException.TooManyRequests;
+    }
+
+    /**
+     * Parse a Retry-After header given either as delta-seconds or an HTTP date.
+     *
+     * @return The requested pause, or null if absent or unparsable
+     */
+    private Duration parseRetryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime until = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration pause = Duration.between(ZonedDateTime.now(until.getZone()), until);
+                return pause.isNegative() ? Duration.ZERO : pause;
+            } catch (DateTimeParseException ex) {
+                log.debug("Ignoring unparsable Retry-After header: {}", value);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Build OCS base URL for a region from the configured template.
+     */
+    public String buildBaseUrl(String region) {
+        return String.format(baseUrlTemplate, region);
+    }
+
     /**
      * Build OCS servers detail URL for a region.
      */
     private String buildServersUrl(String region) {
-        return String.format("https://ocs.eu-fr-%s.cloud.socgen/v0/servers/detail", region);
+        return buildBaseUrl(region) + "/v0/servers/detail";
     }
 
     /**
      * Build OCS image URL for a region and image ID.
      */
     private String buildImageUrl(String region, String imageId) {
-        return String.format("https://ocs.eu-fr-%s.cloud.socgen/v0/images/%s", region, imageId);
+        return buildBaseUrl(region) + "/v0/images/" + imageId;
     }
 }
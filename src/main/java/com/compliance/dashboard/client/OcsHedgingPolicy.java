@@ -0,0 +1,134 @@
+package com.compliance.dashboard.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when to hedge an OCS call: if the call has not answered within a
+ * tracked percentile of recent latencies for its region and operation, a
+ * duplicate is fired and the first answer wins.
+ *
+ * Hedges are paid for from a per-region budget that every regular call tops
+ * up by {@code budget-ratio} and every hedge spends one unit of, so hedging
+ * adds at most that fraction of extra load, even during an outage.
+ */
+@Slf4j
+@Component
+public class OcsHedgingPolicy {
+
+    @Value("${ocs.hedging.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ocs.hedging.percentile:95}")
+    private double percentile;
+
+    @Value("${ocs.hedging.min-samples:20}")
+    private int minSamples;
+
+    @Value("${ocs.hedging.window-size:256}")
+    private int windowSize;
+
+    @Value("${ocs.hedging.min-delay:20ms}")
+    private Duration minDelay;
+
+    @Value("${ocs.hedging.budget-ratio:0.05}")
+    private double budgetRatio;
+
+    @Value("${ocs.hedging.max-budget:10}")
+    private double maxBudget;
+
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final Map<String, HedgeBudget> budgets = new ConcurrentHashMap<>();
+    private final AtomicLong hedgesFired = new AtomicLong();
+    private final AtomicLong hedgesDenied = new AtomicLong();
+
+    /**
+     * Register a regular call and return how long to wait before hedging it.
+     *
+     * @param region The OCS region
+     * @param operation The OCS operation (e.g. "servers", "images")
+     * @return Hedge delay, or null if the call should not be hedged
+     */
+    public Duration hedgeDelay(String region, String operation) {
+        if (!enabled) {
+            return null;
+        }
+        budget(region).deposit(budgetRatio);
+        LatencyWindow window = latencies.get(key(region, operation));
+        if (window == null || window.count() < minSamples) {
+            return null;
+        }
+        long delay = Math.max(window.percentile(percentile), minDelay.toNanos());
+        return Duration.ofNanos(delay);
+    }
+
+    /**
+     * Take one hedge from the region's budget.
+     *
+     * @return true if the hedge may be fired
+     */
+    public boolean tryHedge(String region) {
+        if (budget(region).withdraw()) {
+            hedgesFired.incrementAndGet();
+            log.debug("Hedging slow OCS call in region {}", region);
+            return true;
+        }
+        hedgesDenied.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Record the latency of a successful call.
+     */
+    public void recordLatency(String region, String operation, long nanos) {
+        if (enabled) {
+            latencies.computeIfAbsent(key(region, operation), k -> new LatencyWindow(windowSize)).record(nanos);
+        }
+    }
+
+    public long getHedgesFired() {
+        return hedgesFired.get();
+    }
+
+    public long getHedgesDenied() {
+        return hedgesDenied.get();
+    }
+
+    private HedgeBudget budget(String region) {
+        return budgets.computeIfAbsent(region, r -> new HedgeBudget(maxBudget));
+    }
+
+    private String key(String region, String operation) {
+        return region + "/" + operation;
+    }
+
+    /**
+     * Fractional token pool: regular calls deposit, hedges withdraw whole units.
+     */
+    private static class HedgeBudget {
+        private final double max;
+        private double tokens;
+
+        HedgeBudget(double max) {
+            this.max = max;
+        }
+
+        synchronized void deposit(double amount) {
+            tokens = Math.min(max, tokens + amount);
+        }
+
+        synchronized boolean withdraw() {
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.compliance.dashboard.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared per-region token-bucket rate limiter for OCS API calls.
+ *
+ * Each region gets its own bucket. The refill rate adapts to throttling:
+ * it is cut multiplicatively on every 429 and recovers additively on every
+ * successful call, capped at the configured rate. A Retry-After hint pauses
+ * the whole bucket for that region so no caller fires into a throttled API.
+ */
+@Slf4j
+@Component
+public class OcsRateLimiter {
+
+    @Value("${ocs.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ocs.rate-limit.permits-per-second:20}")
+    private double permitsPerSecond;
+
+    @Value("${ocs.rate-limit.burst:40}")
+    private int burst;
+
+    @Value("${ocs.rate-limit.min-permits-per-second:1}")
+    private double minPermitsPerSecond;
+
+    @Value("${ocs.rate-limit.additive-increase:0.2}")
+    private double additiveIncrease;
+
+    @Value("${ocs.rate-limit.multiplicative-decrease:0.5}")
+    private double multiplicativeDecrease;
+
+    @Value("${ocs.rate-limit.default-retry-after:5s}")
+    private Duration defaultRetryAfter;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Reserve one permit for a call to the given region.
+     *
+     * @param region The OCS region
+     * @return How long the caller must wait before issuing the call
+     */
+    public Duration reserve(String region) {
+        if (!enabled) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(bucket(region).reserve(System.nanoTime()));
+    }
+
+    /**
+     * Record a successful call, letting the region's rate recover.
+     */
+    public void onSuccess(String region) {
+        if (enabled) {
+            bucket(region).onSuccess();
+        }
+    }
+
+    /**
+     * Record a 429 response, backing off the region's rate and pausing it.
+     *
+     * @param region The OCS region
+     * @param retryAfter Server-provided Retry-After, or null if absent
+     */
+    public void onThrottled(String region, Duration retryAfter) {
+        if (!enabled) {
+            return;
+        }
+        Duration pause = retryAfter != null ? retryAfter : defaultRetryAfter;
+        double rate = bucket(region).onThrottled(System.nanoTime(), pause.toNanos());
+        log.warn("OCS throttled region {}: pausing {} ms, rate now {} req/s",
+                region, pause.toMillis(), String.format("%.2f", rate));
+    }
+
+    /**
+     * Pause before retrying a throttled call. With the limiter enabled, its
+     * reservations already space out the retry; with it disabled, the retry
+     * waits out the Retry-After itself.
+     *
+     * @param retryAfter Server-provided Retry-After, or null if absent
+     */
+    public Duration throttledRetryDelay(Duration retryAfter) {
+        if (enabled) {
+            return Duration.ZERO;
+        }
+        return retryAfter != null ? retryAfter : defaultRetryAfter;
+    }
+
+    /**
+     * Current adaptive rate for a region, in permits per second.
+     */
+    public double getCurrentRate(String region) {
+        return bucket(region).currentRate();
+    }
+
+    private TokenBucket bucket(String region) {
+        return buckets.computeIfAbsent(region, r -> new TokenBucket(
+                permitsPerSecond, minPermitsPerSecond, burst, additiveIncrease, multiplicativeDecrease));
+    }
+
+    /**
+     * Reservation-based token bucket. Tokens may go negative: each caller
+     * takes a token immediately and waits out the debt it leaves behind,
+     * so concurrent callers are spread evenly over time.
+     */
+    private static class TokenBucket {
+        private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+        private final double maxRate;
+        private final double minRate;
+        private final double burst;
+        private final double additiveIncrease;
+        private final double multiplicativeDecrease;
+
+        private double rate;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double maxRate, double minRate, int burst,
+                    double additiveIncrease, double multiplicativeDecrease) {
+            this.maxRate = maxRate;
+            this.minRate = Math.min(minRate, maxRate);
+            this.burst = Math.max(1, burst);
+            this.additiveIncrease = additiveIncrease;
+            this.multiplicativeDecrease = multiplicativeDecrease;
+            this.rate = maxRate;
+            this.tokens = this.burst;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized long reserve(long now) {
+            refill(now);
+            long pauseNanos = Math.max(0, lastRefill - now);
+            tokens -= 1;
+            long debtNanos = tokens < 0 ? (long) (-tokens / rate * NANOS_PER_SECOND) : 0;
+            return pauseNanos + debtNanos;
+        }
+
+        synchronized void onSuccess() {
+            rate = Math.min(maxRate, rate + additiveIncrease);
+        }
+
+        synchronized double onThrottled(long now, long pauseNanos) {
+            refill(now);
+            rate = Math.max(minRate, rate * multiplicativeDecrease);
+            tokens = Math.min(tokens, 0);
+            lastRefill = Math.max(lastRefill, now + pauseNanos);
+            return rate;
+        }
+
+        synchronized double currentRate() {
+            return rate;
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(burst, tokens + (now - lastRefill) / NANOS_PER_SECOND * rate);
+                lastRefill = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.compliance.dashboard.client;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deadline for all upstream calls made by a piece of work, such as one app's
+ * compliance check. A blocking client call bounds its whole retried request
+ * by the time left, so once the deadline passes the in-flight request and any
+ * pending retry delay are cancelled and the call fails, instead of the
+ * fixed-delay retries keeping the calling thread busy long after its result
+ * was given up on.
+ *
+ * Like the upstream priority, the deadline is taken from the calling thread,
+ * see {@link #callWithin}.
+ */
+public final class UpstreamDeadline {
+
+    /** {@link System#nanoTime()} by which the current thread's upstream calls must finish. */
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private UpstreamDeadline() {
+    }
+
+    /**
+     * Run work on the current thread, bounding its upstream calls to the given
+     * budget from now. An enclosing deadline that is earlier still applies.
+     */
+    public static <T> T callWithin(Duration budget, Supplier<T> work) {
+        Long previous = CURRENT.get();
+        long deadline = System.nanoTime() + budget.toNanos();
+        CURRENT.set(previous != null && previous - deadline < 0 ? previous : deadline);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Bound a call to the current thread's deadline, if any. Captured when the
+     * call is assembled; a call assembled past the deadline fails without
+     * being subscribed.
+     */
+    static <T> Mono<T> bound(Mono<T> call) {
+        Long deadline = CURRENT.get();
+        if (deadline == null) {
+            return call;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return Mono.error(exceeded());
+        }
+        return call.timeout(Duration.ofNanos(remaining), Mono.error(UpstreamDeadline::exceeded));
+    }
+
+    private static TimeoutException exceeded() {
+        return new TimeoutException("Deadline of the calling check exceeded");
+    }
+}
@@ -0,0 +1,195 @@
+package com.compliance.dashboard.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Priority-aware admission for upstream (OCS, IAMaaS) calls.
+ *
+ * At most {@code max-concurrent} calls are in flight at once. Waiting calls
+ * are granted in priority order, so interactive work jumps ahead of queued
+ * background work, and {@code reserved-interactive} permits are never handed
+ * to background work at all, so a full scan cannot occupy every slot.
+ *
+ * The priority is taken from the calling thread, see {@link #callWith}.
+ */
+@Slf4j
+@Component
+public class UpstreamScheduler {
+
+    /**
+     * Scheduling class of upstream work.
+     */
+    public enum Priority {
+        /** A user waiting on the answer, e.g. a single-app check. */
+        INTERACTIVE,
+        /** Full scans and other work nobody is waiting on. */
+        BACKGROUND
+    }
+
+    private static final ThreadLocal<Priority> CURRENT_PRIORITY = new ThreadLocal<>();
+
+    @Value("${upstream.scheduler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${upstream.scheduler.max-concurrent:16}")
+    private int maxConcurrent;
+
+    @Value("${upstream.scheduler.reserved-interactive:4}")
+    private int reservedInteractive;
+
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>();
+    private int inUse;
+    private long sequence;
+
+    /**
+     * Run work on the current thread with the given upstream priority.
+     * Upstream calls made by the work are scheduled in that class.
+     */
+    public static <T> T callWith(Priority priority, Supplier<T> work) {
+        Priority previous = CURRENT_PRIORITY.get();
+        CURRENT_PRIORITY.set(priority);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT_PRIORITY.set(previous);
+            } else {
+                CURRENT_PRIORITY.remove();
+            }
+        }
+    }
+
+    /**
+     * Priority of the current thread; background unless set by {@link #callWith}.
+     */
+    public static Priority currentPriority() {
+        Priority priority = CURRENT_PRIORITY.get();
+        return priority != null ? priority : Priority.BACKGROUND;
+    }
+
+    /**
+     * Defer a call until a permit for the given priority is free.
+     * The permit is held until the call completes, fails or is cancelled.
+     */
+    public <T> Mono<T> schedule(Priority priority, Mono<T> call) {
+        if (!enabled) {
+            return call;
+        }
+        return acquire(priority).flatMap(permit -> call.doFinally(signal -> permit.release()));
+    }
+
+    /**
+     * Calls currently holding a permit.
+     */
+    public synchronized int getInUse() {
+        return inUse;
+    }
+
+    /**
+     * Calls waiting for a permit.
+     */
+    public synchronized int getWaiting() {
+        return waiting.size();
+    }
+
+    private Mono<Permit> acquire(Priority priority) {
+        return Mono.create(sink -> {
+            Waiter waiter;
+            synchronized (this) {
+                waiter = new Waiter(priority, sequence++, sink);
+                waiting.add(waiter);
+            }
+            sink.onCancel(() -> cancel(waiter));
+            dispatch();
+        });
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit permit;
+        synchronized (this) {
+            permit = waiter.permit;
+            if (permit == null) {
+                waiting.remove(waiter);
+                return;
+            }
+        }
+        permit.release();
+    }
+
+    /**
+     * Grant free permits to waiters in priority order.
+     */
+    private void dispatch() {
+        Waiter next;
+        while (true) {
+            synchronized (this) {
+                next = waiting.peek();
+                if (next == null || !canGrant(next.priority)) {
+                    return;
+                }
+                waiting.poll();
+                next.permit = grant();
+            }
+            // Complete outside the lock; a sink cancelled meanwhile releases via cancel()
+            next.sink.success(next.permit);
+        }
+    }
+
+    private boolean canGrant(Priority priority) {
+        int limit = priority == Priority.INTERACTIVE
+                ? maxConcurrent
+                : Math.max(1, maxConcurrent - reservedInteractive);
+        return inUse < limit;
+    }
+
+    private Permit grant() {
+        inUse++;
+        return new Permit();
+    }
+
+    /**
+     * One in-flight slot; releasing is idempotent.
+     */
+    private class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                synchronized (UpstreamScheduler.this) {
+                    inUse--;
+                }
+                dispatch();
+            }
+        }
+    }
+
+    /**
+     * A queued acquisition, ordered by priority and then arrival.
+     */
+    private class Waiter implements Comparable<Waiter> {
+        final Priority priority;
+        final long sequence;
+        final MonoSink<Permit> sink;
+        Permit permit;
+
+        Waiter(Priority priority, long sequence, MonoSink<Permit> sink) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.sink = sink;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.compliance.dashboard.client;
+
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Counters for the upstream calls made by one stage of a traced check:
+ * requests sent (including hedges), retries and response bytes received.
+ *
+ * Like the upstream priority, the trace is taken from the calling thread, see
+ * {@link #recordInto}; clients capture it when a call is assembled, so retries
+ * and hedges running on other threads count against the same trace. Response
+ * bytes are counted by {@link #byteCounter()} from the Reactor context.
+ */
+public class UpstreamTrace {
+
+    private static final ThreadLocal<UpstreamTrace> CURRENT = new ThreadLocal<>();
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicInteger hedges = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Run work on the current thread, recording its upstream calls into the trace.
+     */
+    public static <T> T recordInto(UpstreamTrace trace, Supplier<T> work) {
+        UpstreamTrace previous = CURRENT.get();
+        CURRENT.set(trace);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Trace of the current thread, or null when its calls are not traced.
+     */
+    public static UpstreamTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Record a request into the trace, if any, and make the trace visible to
+     * {@link #byteCounter()} for the request's response.
+     */
+    static <T> Mono<T> traced(UpstreamTrace trace, Mono<T> request) {
+        if (trace == null) {
+            return request;
+        }
+        return request
+                .doOnSubscribe(subscription -> trace.calls.incrementAndGet())
+                .contextWrite(Context.of(UpstreamTrace.class, trace));
+    }
+
+    static void recordRetry(UpstreamTrace trace) {
+        if (trace != null) {
+            trace.retries.incrementAndGet();
+        }
+    }
+
+    static void recordHedge(UpstreamTrace trace) {
+        if (trace != null) {
+            trace.hedges.incrementAndGet();
+        }
+    }
+
+    /**
+     * WebClient filter counting response body bytes into the trace of the request, if any.
+     */
+    public static ExchangeFilterFunction byteCounter() {
+        return (request, next) -> Mono.deferContextual(context -> {
+            UpstreamTrace trace = context.getOrDefault(UpstreamTrace.class, null);
+            if (trace == null) {
+                return next.exchange(request);
+            }
+            return next.exchange(request).map(response -> response.mutate()
+                    .body(body -> body.doOnNext(buffer -> trace.bytes.addAndGet(buffer.readableByteCount())))
+                    .build());
+        });
+    }
+
+    public int getCalls() {
+        return calls.get();
+    }
+
+    public int getRetries() {
+        return retries.get();
+    }
+
+    public int getHedges() {
+        return hedges.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+}
@@ -0,0 +1,43 @@
+package com.compliance.dashboard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compliance policies defined under {@code compliance.policy}.
+ * The active policy classifies servers during scans; every defined policy can
+ * be evaluated on demand over the latest snapshot.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "compliance.policy")
+public class CompliancePolicyProperties {
+
+    /** Name of the policy used to classify servers during scans. */
+    private String active = "current-week";
+
+    private Map<String, Definition> definitions = new LinkedHashMap<>();
+
+    /**
+     * One named policy. Images built in the current ISO week are always
+     * compliant; older images are compliant within the grace period.
+     * Also accepted as a JSON request body for ad-hoc evaluation.
+     */
+    @Data
+    public static class Definition {
+
+        /** Weeks an image may lag behind the current ISO week and still be compliant. */
+        @JsonProperty("grace_weeks")
+        private int graceWeeks;
+
+        /** Per-app grace periods overriding {@link #graceWeeks}. */
+        @JsonProperty("app_grace_weeks")
+        private Map<String, Integer> appGraceWeeks = new HashMap<>();
+    }
+}
@@ -0,0 +1,58 @@
+package com.compliance.dashboard.config;
+
+import com.compliance.dashboard.health.UpstreamStatus;
+import com.compliance.dashboard.model.AppConfig;
+import com.compliance.dashboard.model.AppTrace;
+import com.compliance.dashboard.model.AppsRequest;
+import com.compliance.dashboard.model.ComplianceResult;
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import com.compliance.dashboard.model.RegionResult;
+import com.compliance.dashboard.model.RegionTrace;
+import com.compliance.dashboard.model.ScanTrace;
+import com.compliance.dashboard.model.ServerChange;
+import com.compliance.dashboard.model.ServerInfo;
+import com.compliance.dashboard.model.ServerTable;
+import com.compliance.dashboard.model.StageTrace;
+import com.compliance.dashboard.service.CompliancePolicy;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image.
+ *
+ * Spring AOT infers the types of typed request and response bodies, but most
+ * endpoints here return {@code Object} or maps, and Vault configs and
+ * persisted snapshots are bound with the {@code ObjectMapper} directly. The
+ * types Jackson reads or writes that way are registered here, along with
+ * their Lombok-generated accessors and the types of their properties. The
+ * HTTP clients decode upstream responses into maps, so they need no hints of
+ * their own; Netty's are provided by its own native-image metadata.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] JSON_TYPES = {
+            AppConfig.class,
+            AppsRequest.class,
+            ComplianceSnapshot.class,
+            ComplianceResult.class,
+            RegionResult.class,
+            ServerInfo.class,
+            ServerChange.class,
+            ScanTrace.class,
+            AppTrace.class,
+            RegionTrace.class,
+            StageTrace.class,
+            UpstreamStatus.class,
+            CompliancePolicy.class,
+            CompliancePolicyProperties.Definition.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JSON_TYPES);
+        // Instantiated by Jackson from the @JsonSerialize annotation
+        hints.reflection().registerType(ServerTable.Serializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
@@ -1,5 +1,6 @@
 package com.compliance.dashboard.config;
 
+import com.compliance.dashboard.client.UpstreamTrace;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
@@ -34,10 +35,12 @@ public class WebConfig {
 
     /**
      * Configure WebClient for making HTTP requests to external APIs.
+     * Response sizes are counted for debug traces.
      */
     @Bean
     public WebClient webClient() {
         return WebClient.builder()
+                .filter(UpstreamTrace.byteCounter())
                 .codecs(configurer -> configurer
                         .defaultCodecs()
                         .maxInMemorySize(16 * 1024 * 1024)) // 16MB buffer
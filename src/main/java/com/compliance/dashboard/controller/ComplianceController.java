@@ -1,14 +1,31 @@
 package com.compliance.dashboard.controller;
 
+import com.compliance.dashboard.health.UpstreamHealthProber;
+import com.compliance.dashboard.health.UpstreamStatus;
+import com.compliance.dashboard.model.AppsRequest;
 import com.compliance.dashboard.model.ComplianceResult;
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import com.compliance.dashboard.service.ComplianceExportWriter;
 import com.compliance.dashboard.service.ComplianceService;
+import com.compliance.dashboard.service.PublishedSnapshot;
+import com.compliance.dashboard.service.SerializedResponse;
+import com.compliance.dashboard.service.SnapshotService;
 import com.compliance.dashboard.service.VaultService;
+import com.compliance.dashboard.shard.ShardGateway;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -24,37 +41,39 @@ public class ComplianceController {
 
     private final VaultService vaultService;
     private final ComplianceService complianceService;
+    private final SnapshotService snapshotService;
+    private final ObjectMapper objectMapper;
+    private final UpstreamHealthProber upstreamHealthProber;
+    private final ShardGateway shardGateway;
 
     /**
      * Health check endpoint.
-     * Tests API and Vault connectivity.
+     * Reports Vault, IAMaaS and OCS connectivity from the background prober's
+     * latest results; never calls upstream itself.
      *
      * GET /api/health
      */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
-        log.info("Health check requested");
+        log.debug("Health check requested");
         
         Map<String, Object> response = new HashMap<>();
+        UpstreamStatus vault = upstreamHealthProber.getVaultStatus();
         
-        try {
-            boolean vaultConnected = vaultService.testConnection();
-            
-            response.put("status", vaultConnected ? "healthy" : "unhealthy");
-            response.put("vault_connected", vaultConnected);
-            response.put("message", vaultConnected 
-                    ? "API is running and Vault is accessible" 
-                    : "API is running but Vault is not accessible");
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("Health check failed", e);
-            response.put("status", "unhealthy");
+        if (vault == null) {
+            response.put("status", "starting");
             response.put("vault_connected", false);
-            response.put("error", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            response.put("message", "API is running, upstream probes have not completed yet");
+        } else {
+            response.put("status", vault.isUp() ? "healthy" : "unhealthy");
+            response.put("vault_connected", vault.isUp());
+            response.put("message", vault.isUp()
+                    ? "API is running and Vault is accessible"
+                    : "API is running but Vault is not accessible");
         }
+        response.put("upstreams", upstreamHealthProber.getStatuses());
+        
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -88,28 +107,69 @@ public class ComplianceController {
 
     /**
      * Get compliance data for all apps or a specific app.
+     * All-apps results are served from the latest snapshot (flagged stale
+     * when restored from disk), pre-serialized and pre-compressed at publish
+     * time; debug requests always run a live scan.
+     *
+     * In sharded mode, single-app requests are forwarded to the replica owning
+     * the app and all-apps results are merged from every replica's snapshot;
+     * debug scans cover this replica's shard only and are marked partial.
      *
      * GET /api/compliance?app=<app_name>&debug=<true|false>
+     * GET /api/compliance?apps=<app_name>,<app_name>&debug=<true|false>
      *
      * @param app Optional app name to check specific app
+     * @param apps Optional app names to check together, see {@link #postCompliance}
      * @param debug Optional debug flag
      */
     @GetMapping("/compliance")
     public ResponseEntity<Object> getCompliance(
             @RequestParam(required = false) String app,
-            @RequestParam(required = false, defaultValue = "false") boolean debug) {
+            @RequestParam(required = false) List<String> apps,
+            @RequestParam(required = false, defaultValue = "false") boolean debug,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = ShardGateway.FORWARDED_HEADER, required = false) String forwarded) {
+        
+        if (apps != null && !apps.isEmpty()) {
+            if (app != null && !app.isEmpty()) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "Both app and apps given");
+                errorResponse.put("message", "Use app for one app or apps for several, not both");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            }
+            return checkListedApps(apps, debug);
+        }
         
         log.info("Compliance check requested - app: {}, debug: {}", app, debug);
         
         try {
             if (app != null && !app.isEmpty()) {
+                String owner = shardGateway.forwardTarget(app, forwarded);
+                if (owner != null) {
+                    try {
+                        return shardGateway.forward(owner, "/api/compliance?app="
+                                + URLEncoder.encode(app, StandardCharsets.UTF_8) + "&debug=" + debug);
+                    } catch (Exception e) {
+                        // Single-app checks are live, any replica can run them
+                        log.warn("Replica {} owning app {} is unreachable, checking locally: {}",
+                                owner, app, e.getMessage());
+                    }
+                }
                 // Check specific app
                 ComplianceResult result = complianceService.checkCompliance(app, debug);
                 return ResponseEntity.ok(result);
+            } else if (debug) {
+                // Check all apps live
+                ComplianceSnapshot snapshot = complianceService.checkAllAppsCompliance(true);
+                return ResponseEntity.ok(snapshot);
             } else {
-                // Check all apps
-                Map<String, Object> results = complianceService.checkAllAppsCompliance(debug);
-                return ResponseEntity.ok(results);
+                // Serve all apps from the latest snapshot
+                PublishedSnapshot published = snapshotService.getOrRefresh();
+                if (shardGateway.spansReplicas(forwarded)) {
+                    return ResponseEntity.ok(shardGateway.mergeSnapshots(published.getResponse().getJson()));
+                }
+                return serialized(published.getResponse(), acceptEncoding, ifNoneMatch);
             }
             
         } catch (Exception e) {
@@ -123,6 +183,53 @@ public class ComplianceController {
         }
     }
 
+    /**
+     * Get compliance data for several apps at once, as one combined result
+     * shaped like the all-apps snapshot. The apps' configs come from a single
+     * Vault read, apps with the same credentials or OCS account share tokens
+     * and region inventories, and the apps are checked concurrently. Apps
+     * without a config are reported with an error. The check always runs on
+     * this replica, whichever replicas own the apps.
+     *
+     * POST /api/compliance
+     * Body: {"apps": ["<app_name>", ...], "debug": false}
+     */
+    @PostMapping("/compliance")
+    public ResponseEntity<Object> postCompliance(@RequestBody(required = false) AppsRequest request) {
+        if (request == null || request.getApps() == null || request.getApps().isEmpty()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "No apps given");
+            errorResponse.put("message", "apps must list at least one app name");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        return checkListedApps(request.getApps(), request.isDebug());
+    }
+
+    private ResponseEntity<Object> checkListedApps(List<String> apps, boolean debug) {
+        log.info("Compliance check requested - apps: {}, debug: {}", apps, debug);
+        
+        if (apps.stream().anyMatch(app -> app == null || app.isBlank())) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Invalid app name in apps");
+            errorResponse.put("message", "apps must list app names");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        
+        try {
+            List<String> appNames = apps.stream().map(String::trim).distinct().toList();
+            return ResponseEntity.ok(complianceService.checkListedAppsCompliance(appNames, debug));
+            
+        } catch (Exception e) {
+            log.error("Error in compliance check", e);
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("message", "Failed to check compliance");
+            
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     /**
      * Get aggregated compliance summary across all apps and regions.
      *
@@ -131,71 +238,24 @@ public class ComplianceController {
      * @param debug Optional debug flag
      */
     @GetMapping("/compliance/summary")
-    public ResponseEntity<Map<String, Object>> getComplianceSummary(
-            @RequestParam(required = false, defaultValue = "false") boolean debug) {
+    public ResponseEntity<Object> getComplianceSummary(
+            @RequestParam(required = false, defaultValue = "false") boolean debug,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = ShardGateway.FORWARDED_HEADER, required = false) String forwarded) {
         
         log.info("Compliance summary requested - debug: {}", debug);
         
         try {
-            Map<String, Object> allResults = complianceService.checkAllAppsCompliance(debug);
-            Map<String, ComplianceResult> apps = (Map<String, ComplianceResult>) allResults.get("apps");
-            
-            // Aggregate statistics
-            int totalServers = 0;
-            int totalCompliant = 0;
-            int totalNonCompliant = 0;
-            List<Map<String, Object>> appsSummary = new ArrayList<>();
-            
-            for (Map.Entry<String, ComplianceResult> entry : apps.entrySet()) {
-                String appName = entry.getKey();
-                ComplianceResult appData = entry.getValue();
-                
-                int appTotal = 0;
-                int appCompliant = 0;
-                int appNonCompliant = 0;
-                
-                if (appData.getRegions() != null) {
-                    for (Map.Entry<String, com.compliance.dashboard.model.RegionResult> regionEntry : 
-                            appData.getRegions().entrySet()) {
-                        com.compliance.dashboard.model.RegionResult regionData = regionEntry.getValue();
-                        
-                        if (regionData.getError() == null) {
-                            appTotal += regionData.getTotalServers();
-                            appCompliant += regionData.getCompliant();
-                            appNonCompliant += regionData.getNonCompliant();
-                        }
-                    }
-                }
-                
-                totalServers += appTotal;
-                totalCompliant += appCompliant;
-                totalNonCompliant += appNonCompliant;
-                
-                Map<String, Object> appSummary = new HashMap<>();
-                appSummary.put("app_name", appName);
-                appSummary.put("total_servers", appTotal);
-                appSummary.put("compliant", appCompliant);
-                appSummary.put("non_compliant", appNonCompliant);
-                appSummary.put("compliance_percentage", 
-                        appTotal > 0 ? Math.round((double) appCompliant / appTotal * 10000.0) / 100.0 : 0.0);
-                
-                appsSummary.add(appSummary);
+            if (debug) {
+                ComplianceSnapshot snapshot = complianceService.checkAllAppsCompliance(true);
+                return ResponseEntity.ok(complianceService.summarize(snapshot));
             }
-            
-            // Build summary response
-            Map<String, Object> overall = new HashMap<>();
-            overall.put("total_servers", totalServers);
-            overall.put("compliant", totalCompliant);
-            overall.put("non_compliant", totalNonCompliant);
-            overall.put("compliance_percentage", 
-                    totalServers > 0 ? Math.round((double) totalCompliant / totalServers * 10000.0) / 100.0 : 0.0);
-            
-            Map<String, Object> summary = new HashMap<>();
-            summary.put("timestamp", allResults.get("timestamp"));
-            summary.put("overall", overall);
-            summary.put("by_app", appsSummary);
-            
-            return ResponseEntity.ok(summary);
+            PublishedSnapshot published = snapshotService.getOrRefresh();
+            if (shardGateway.spansReplicas(forwarded)) {
+                return ResponseEntity.ok(shardGateway.mergeSummaries(published.getSummary().getJson()));
+            }
+            return serialized(published.getSummary(), acceptEncoding, ifNoneMatch);
             
         } catch (Exception e) {
             log.error("Error generating summary", e);
@@ -208,6 +268,153 @@ public class ComplianceController {
         }
     }
 
+    /**
+     * Stream compliance results as CSV or NDJSON, one row per server.
+     * Runs a live scan and writes each region's rows as soon as the region is
+     * classified, so memory stays flat and the first rows arrive before the
+     * scan finishes. In sharded mode the export covers this replica's shard,
+     * as marked by the {@link ShardGateway#PARTIAL_HEADER} and
+     * {@link ShardGateway#SHARD_HEADER} response headers.
+     *
+     * GET /api/compliance/export?format=<csv|ndjson>&status=<compliant|non_compliant>
+     *
+     * @param format Output format (default csv)
+     * @param status Optional status filter; error rows are always included
+     */
+    @GetMapping("/compliance/export")
+    public ResponseEntity<StreamingResponseBody> exportCompliance(
+            @RequestParam(required = false, defaultValue = "csv") String format,
+            @RequestParam(required = false) String status) {
+        
+        log.info("Compliance export requested - format: {}, status: {}", format, status);
+        
+        ComplianceExportWriter.Format exportFormat;
+        try {
+            exportFormat = ComplianceExportWriter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Invalid format: " + format);
+            errorResponse.put("message", "format must be 'csv' or 'ndjson'");
+            return streamedError(HttpStatus.BAD_REQUEST, errorResponse);
+        }
+        
+        Boolean compliant = null;
+        if (status != null && !status.isEmpty()) {
+            if (!status.equals("compliant") && !status.equals("non_compliant")) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "Invalid status: " + status);
+                errorResponse.put("message", "status must be 'compliant' or 'non_compliant'");
+                return streamedError(HttpStatus.BAD_REQUEST, errorResponse);
+            }
+            compliant = status.equals("compliant");
+        }
+        
+        Boolean statusFilter = compliant;
+        StreamingResponseBody body = out -> {
+            long start = System.nanoTime();
+            ComplianceExportWriter writer = new ComplianceExportWriter(exportFormat, statusFilter, out, objectMapper);
+            try {
+                complianceService.streamAllAppsCompliance(writer::write);
+                writer.flush();
+            } catch (UncheckedIOException e) {
+                log.warn("Compliance export aborted after {} rows: {}", writer.getRows(), e.getMessage());
+                return;
+            }
+            log.info("Compliance export finished: {} rows in {} ms",
+                    writer.getRows(), (System.nanoTime() - start) / 1_000_000);
+        };
+        
+        String filename = "compliance-" + LocalDate.now() + "." + exportFormat.name().toLowerCase(Locale.ROOT);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        String shard = complianceService.getScanShard();
+        if (shard != null) {
+            response.header(ShardGateway.PARTIAL_HEADER, "true")
+                    .header(ShardGateway.SHARD_HEADER, shard);
+        }
+        return response.body(body);
+    }
+
+    /**
+     * JSON error body for endpoints whose declared body type is a stream.
+     */
+    private ResponseEntity<StreamingResponseBody> streamedError(HttpStatus status, Map<String, Object> errorResponse) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, errorResponse));
+    }
+
+    /**
+     * Write a pre-serialized response, picking the gzip variant when the client
+     * accepts it. Already-encoded bodies are left alone by server compression.
+     * Each variant has its own ETag.
+     */
+    private ResponseEntity<Object> serialized(SerializedResponse response, String acceptEncoding, String ifNoneMatch) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? response.getGzipEtag() : response.getEtag();
+        if (matchesAny(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getGzip());
+        }
+        return builder.body(response.getJson());
+    }
+
+    /**
+     * Whether an If-None-Match header lists the given entity-tag or is "*".
+     * Compared weakly, as If-None-Match requires.
+     */
+    private boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip (and does not give it q=0).
+     */
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim().replace(" ", "");
+                    if (param.matches("q=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Global exception handler for 404 errors.
      */
@@ -0,0 +1,102 @@
+package com.compliance.dashboard.controller;
+
+import com.compliance.dashboard.model.AppsRequest;
+import com.compliance.dashboard.service.ComplianceJob;
+import com.compliance.dashboard.service.ComplianceJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * REST Controller for asynchronous compliance scans.
+ * A job runs on this replica whatever the connection that started it does;
+ * clients poll it for progress and fetch the result once it has finished.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/compliance/jobs")
+@RequiredArgsConstructor
+public class ComplianceJobController {
+
+    private final ComplianceJobService jobService;
+
+    /**
+     * Start a scan of all apps or of the listed ones.
+     * An identical job still queued or running is returned instead of a new one.
+     *
+     * POST /api/compliance/jobs
+     * Body (optional): {"apps": ["<app_name>", ...], "debug": false}
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submit(@RequestBody(required = false) AppsRequest request) {
+        List<String> apps = request != null ? request.getApps() : null;
+        boolean debug = request != null && request.isDebug();
+        log.info("Compliance job requested - apps: {}, debug: {}", apps, debug);
+
+        if (apps != null && apps.stream().anyMatch(app -> app == null || app.isBlank())) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Invalid app name in apps");
+            errorResponse.put("message", "apps must list app names, or be omitted to scan all apps");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+
+        ComplianceJob job;
+        try {
+            job = jobService.submit(apps, debug);
+        } catch (RejectedExecutionException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Too many compliance jobs queued");
+            errorResponse.put("message", "Retry once some of the queued jobs have finished");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/compliance/jobs/" + job.getId()))
+                .body(job.describe(jobService.getResultTtl(), false));
+    }
+
+    /**
+     * Status and progress of a job, with its result once it has succeeded.
+     *
+     * GET /api/compliance/jobs/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> get(@PathVariable String id) {
+        ComplianceJob job = jobService.find(id);
+        if (job == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Unknown job: " + id);
+            errorResponse.put("message", "Finished jobs are kept for " + jobService.getResultTtl());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+        return ResponseEntity.ok(job.describe(jobService.getResultTtl(), true));
+    }
+
+    /**
+     * Jobs kept on this replica, newest first, without their results.
+     *
+     * GET /api/compliance/jobs
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> list() {
+        List<Map<String, Object>> jobs = jobService.list().stream()
+                .map(job -> job.describe(jobService.getResultTtl(), false))
+                .toList();
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobs", jobs);
+        response.put("count", jobs.size());
+        return ResponseEntity.ok(response);
+    }
+}
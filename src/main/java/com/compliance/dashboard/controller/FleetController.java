@@ -0,0 +1,140 @@
+package com.compliance.dashboard.controller;
+
+import com.compliance.dashboard.model.ServerInfo;
+import com.compliance.dashboard.service.FleetIndex;
+import com.compliance.dashboard.service.PublishedSnapshot;
+import com.compliance.dashboard.service.SnapshotService;
+import com.compliance.dashboard.shard.ShardGateway;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for querying the fleet indexed from the latest compliance snapshot.
+ * Answers from memory across all apps and regions without calling upstream.
+ * In sharded mode, every replica's answer over its own snapshot is merged.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/fleet")
+@RequiredArgsConstructor
+public class FleetController {
+
+    private static final int MAX_LIMIT = 10000;
+
+    private final SnapshotService snapshotService;
+    private final ShardGateway shardGateway;
+
+    /**
+     * Query servers by image, image age, name prefix, app, region and status.
+     * All given criteria must match. Match counts are also given by app.
+     *
+     * GET /api/fleet/servers?image=&min_age_weeks=&max_age_weeks=&name_prefix=&app=&region=&status=&limit=
+     *
+     * @param image Image ID or image name
+     * @param minAgeWeeks Minimum image age in ISO weeks (inclusive)
+     * @param maxAgeWeeks Maximum image age in ISO weeks (inclusive)
+     * @param namePrefix Case-insensitive server name prefix
+     * @param app App name
+     * @param region Region name
+     * @param status "compliant" or "non_compliant"
+     * @param limit Maximum number of servers returned
+     */
+    @GetMapping("/servers")
+    public ResponseEntity<Object> queryServers(
+            @RequestParam(required = false) String image,
+            @RequestParam(name = "min_age_weeks", required = false) Integer minAgeWeeks,
+            @RequestParam(name = "max_age_weeks", required = false) Integer maxAgeWeeks,
+            @RequestParam(name = "name_prefix", required = false) String namePrefix,
+            @RequestParam(required = false) String app,
+            @RequestParam(required = false) String region,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false, defaultValue = "1000") int limit,
+            @RequestHeader(value = ShardGateway.FORWARDED_HEADER, required = false) String forwarded,
+            HttpServletRequest request) {
+        
+        log.info("Fleet query - image: {}, age: {}..{}, prefix: {}, app: {}, region: {}, status: {}",
+                image, minAgeWeeks, maxAgeWeeks, namePrefix, app, region, status);
+        
+        Boolean compliant = null;
+        if (status != null && !status.isEmpty()) {
+            if (!status.equals("compliant") && !status.equals("non_compliant")) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "Invalid status: " + status);
+                errorResponse.put("message", "status must be 'compliant' or 'non_compliant'");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            }
+            compliant = status.equals("compliant");
+        }
+        
+        long start = System.nanoTime();
+        int maxServers = Math.max(0, Math.min(limit, MAX_LIMIT));
+        PublishedSnapshot published = snapshotService.getOrRefresh();
+        FleetIndex.QueryResult result = published.getFleetIndex().query(FleetIndex.Query.builder()
+                        .image(emptyToNull(image))
+                        .minAgeWeeks(minAgeWeeks)
+                        .maxAgeWeeks(maxAgeWeeks)
+                        .namePrefix(emptyToNull(namePrefix))
+                        .app(emptyToNull(app))
+                        .region(emptyToNull(region))
+                        .compliant(compliant)
+                        .build(),
+                maxServers);
+        
+        List<Map<String, Object>> servers = new ArrayList<>();
+        for (FleetIndex.Entry entry : result.getEntries()) {
+            servers.add(toMap(entry));
+        }
+        
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("timestamp", published.getSnapshot().getTimestamp());
+        response.put("stale", published.getSnapshot().isStale());
+        response.put("indexed_servers", published.getFleetIndex().size());
+        response.put("total_matches", result.getTotal());
+        response.put("returned", servers.size());
+        response.put("truncated", result.getTotal() > servers.size());
+        response.put("took_ms", (System.nanoTime() - start) / 1_000_000.0);
+        response.put("matches_by_app", result.getTotalByApp());
+        response.put("servers", servers);
+        if (shardGateway.spansReplicas(forwarded)) {
+            ObjectNode merged = shardGateway.mergeFleetQueries(response, ShardGateway.pathAndQuery(request), maxServers);
+            merged.put("took_ms", (System.nanoTime() - start) / 1_000_000.0);
+            return ResponseEntity.ok(merged);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> toMap(FleetIndex.Entry entry) {
+        ServerInfo server = entry.getServer();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("app_name", entry.getApp());
+        map.put("region", entry.getRegion());
+        map.put("name", server.getName());
+        map.put("image_id", server.getImageId());
+        map.put("image_name", server.getImageName());
+        map.put("image_year", server.getImageYear());
+        map.put("image_week", server.getImageWeek());
+        map.put("image_age_weeks", entry.getAgeWeeks());
+        map.put("compliant", entry.isCompliant());
+        map.put("reason", server.getReason());
+        return map;
+    }
+
+    private String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
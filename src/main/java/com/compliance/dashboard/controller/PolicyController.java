@@ -0,0 +1,124 @@
+package com.compliance.dashboard.controller;
+
+import com.compliance.dashboard.config.CompliancePolicyProperties;
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import com.compliance.dashboard.service.CompliancePolicy;
+import com.compliance.dashboard.service.CompliancePolicyEngine;
+import com.compliance.dashboard.service.SnapshotService;
+import com.compliance.dashboard.shard.ShardGateway;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * REST Controller for compliance policies and what-if evaluation.
+ * Evaluations run over the latest snapshot in memory and never call upstream.
+ * In sharded mode, every replica evaluates its own snapshot and the evaluations are merged.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/compliance")
+@RequiredArgsConstructor
+public class PolicyController {
+
+    private final CompliancePolicyEngine policyEngine;
+    private final SnapshotService snapshotService;
+    private final ShardGateway shardGateway;
+
+    /**
+     * List the configured policies and the one used by scans.
+     *
+     * GET /api/compliance/policies
+     */
+    @GetMapping("/policies")
+    public ResponseEntity<Map<String, Object>> getPolicies() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("active", policyEngine.getActive().getName());
+        response.put("policies", policyEngine.getPolicies());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Evaluate a configured policy over the latest snapshot.
+     *
+     * GET /api/compliance/evaluate?policy=<name>
+     *
+     * @param policy Policy name (default: the active policy)
+     */
+    @GetMapping("/evaluate")
+    public ResponseEntity<Object> evaluate(
+            @RequestParam(required = false) String policy,
+            @RequestHeader(value = ShardGateway.FORWARDED_HEADER, required = false) String forwarded,
+            HttpServletRequest request) {
+        log.info("Policy evaluation requested - policy: {}", policy);
+        
+        CompliancePolicy compliancePolicy = policy != null && !policy.isEmpty()
+                ? policyEngine.find(policy)
+                : policyEngine.getActive();
+        if (compliancePolicy == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Unknown policy: " + policy);
+            errorResponse.put("message", "Use GET /api/compliance/policies to list the configured policies");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+        return evaluate(compliancePolicy, forwarded, request, null);
+    }
+
+    /**
+     * Evaluate an ad-hoc policy over the latest snapshot.
+     *
+     * POST /api/compliance/evaluate
+     * Body: {"grace_weeks": 1, "app_grace_weeks": {"<app_name>": 2}}
+     */
+    @PostMapping("/evaluate")
+    public ResponseEntity<Object> evaluateAdHoc(
+            @RequestBody CompliancePolicyProperties.Definition definition,
+            @RequestHeader(value = ShardGateway.FORWARDED_HEADER, required = false) String forwarded,
+            HttpServletRequest request) {
+        log.info("Ad-hoc policy evaluation requested - grace weeks: {}, app grace weeks: {}",
+                definition.getGraceWeeks(), definition.getAppGraceWeeks());
+        
+        CompliancePolicy policy;
+        try {
+            policy = CompliancePolicy.of("ad-hoc", definition);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("message", "Invalid policy");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        return evaluate(policy, forwarded, request, definition);
+    }
+
+    /**
+     * @param definition Ad-hoc policy definition to send to the peers, or null for a configured policy
+     */
+    private ResponseEntity<Object> evaluate(CompliancePolicy policy, String forwarded, HttpServletRequest request,
+                                            CompliancePolicyProperties.Definition definition) {
+        ComplianceSnapshot snapshot = snapshotService.getCurrent();
+        if (snapshot == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "No compliance snapshot available yet");
+            errorResponse.put("message", "Policies are evaluated over the latest scan; retry once it completes");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+        }
+        Map<String, Object> evaluation = policyEngine.evaluate(snapshot, policy);
+        if (shardGateway.spansReplicas(forwarded)) {
+            return ResponseEntity.ok(shardGateway.mergeEvaluations(evaluation,
+                    ShardGateway.pathAndQuery(request), definition));
+        }
+        return ResponseEntity.ok(evaluation);
+    }
+}
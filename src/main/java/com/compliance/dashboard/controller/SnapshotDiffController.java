@@ -0,0 +1,139 @@
+package com.compliance.dashboard.controller;
+
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import com.compliance.dashboard.service.SnapshotDiff;
+import com.compliance.dashboard.service.SnapshotService;
+import com.compliance.dashboard.shard.ShardGateway;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for changes between compliance snapshots.
+ * Diffs run over snapshots kept in memory and never call upstream.
+ * In sharded mode, every replica diffs its own snapshots and the diffs are merged.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/compliance")
+@RequiredArgsConstructor
+public class SnapshotDiffController {
+
+    private final SnapshotService snapshotService;
+    private final ShardGateway shardGateway;
+
+    /**
+     * List the timestamps of the snapshots that can be diffed.
+     *
+     * GET /api/compliance/history
+     */
+    @GetMapping("/history")
+    public ResponseEntity<Map<String, Object>> getHistory() {
+        List<LocalDateTime> snapshots = snapshotService.getHistory();
+        Map<String, Object> response = new HashMap<>();
+        response.put("snapshots", snapshots);
+        response.put("count", snapshots.size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Servers added, removed, newly non-compliant and newly compliant between
+     * the snapshots as of two points in time.
+     *
+     * GET /api/compliance/diff?from=<date or date-time>&to=<date or date-time>
+     *
+     * @param from Optional start, e.g. 2025-10-06 or 2025-10-06T08:00 (default: the scan before {@code to})
+     * @param to Optional end (default: the latest snapshot)
+     */
+    @GetMapping("/diff")
+    public ResponseEntity<Object> diff(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestHeader(value = ShardGateway.FORWARDED_HEADER, required = false) String forwarded,
+            HttpServletRequest request) {
+
+        log.info("Compliance diff requested - from: {}, to: {}", from, to);
+
+        LocalDateTime fromTime;
+        LocalDateTime toTime;
+        try {
+            fromTime = parseTime(from);
+            toTime = parseTime(to);
+        } catch (DateTimeParseException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Invalid time: " + e.getParsedString());
+            errorResponse.put("message", "from and to must be ISO dates (2025-10-06) or date-times (2025-10-06T08:00)");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+        if (fromTime != null && toTime != null && fromTime.isAfter(toTime)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "from is later than to");
+            errorResponse.put("message", "from must not be later than to");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+
+        if (snapshotService.getCurrent() == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "No compliance snapshot available yet");
+            errorResponse.put("message", "Diffs compare completed scans; retry once the first one completes");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+        }
+
+        ComplianceSnapshot toSnapshot = toTime != null
+                ? snapshotService.findAsOf(toTime)
+                : snapshotService.getCurrent();
+        if (toSnapshot == null) {
+            return notKept("No snapshot kept as of " + toTime);
+        }
+        ComplianceSnapshot fromSnapshot = fromTime != null
+                ? snapshotService.findAsOf(fromTime)
+                : snapshotService.findPrevious(toSnapshot);
+        if (fromSnapshot == null) {
+            return notKept(fromTime != null
+                    ? "No snapshot kept as of " + fromTime
+                    : "No snapshot kept before " + toSnapshot.getTimestamp());
+        }
+
+        Map<String, Object> diff = SnapshotDiff.compute(fromSnapshot, toSnapshot);
+        if (shardGateway.spansReplicas(forwarded)) {
+            return ResponseEntity.ok(shardGateway.mergeDiffs(diff, ShardGateway.pathAndQuery(request)));
+        }
+        return ResponseEntity.ok(diff);
+    }
+
+    private ResponseEntity<Object> notKept(String error) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", error);
+        errorResponse.put("message", "Use GET /api/compliance/history to list the snapshots that can be diffed");
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+
+    /**
+     * Parse an ISO date-time, or an ISO date meaning its start.
+     *
+     * @return Time, or null if not given
+     */
+    private LocalDateTime parseTime(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (value.contains("T")) {
+            return LocalDateTime.parse(value);
+        }
+        return LocalDate.parse(value).atStartOfDay();
+    }
+}
@@ -0,0 +1,33 @@
+package com.compliance.dashboard.health;
+
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import com.compliance.dashboard.service.SnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Readiness contribution for the compliance snapshot.
+ * Depending on {@code compliance.snapshot.readiness}, the instance is ready
+ * once a stale snapshot is restored or only after a fresh scan.
+ */
+@Component("snapshot")
+@RequiredArgsConstructor
+public class SnapshotHealthIndicator implements HealthIndicator {
+
+    private final SnapshotService snapshotService;
+
+    @Override
+    public Health health() {
+        ComplianceSnapshot snapshot = snapshotService.getCurrent();
+        Health.Builder builder = snapshotService.isReady() ? Health.up() : Health.outOfService();
+        builder.withDetail("readiness_mode", snapshotService.getReadinessMode().name().toLowerCase())
+                .withDetail("fresh_scan_completed", snapshotService.isFreshScanCompleted());
+        if (snapshot != null) {
+            builder.withDetail("snapshot_timestamp", snapshot.getTimestamp())
+                    .withDetail("stale", snapshot.isStale());
+        }
+        return builder.build();
+    }
+}
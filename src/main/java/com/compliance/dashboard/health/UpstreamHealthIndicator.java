@@ -0,0 +1,42 @@
+package com.compliance.dashboard.health;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upstream health from the background prober's latest results; unknown until
+ * the first probe completes.
+ *
+ * Always up once probed: upstreams that are down are listed under
+ * {@code degraded} in the details instead of taking the aggregate health down,
+ * since the instance keeps serving the latest snapshot without them and the
+ * load balancer should not pull it out of rotation.
+ */
+@Component("upstreams")
+@RequiredArgsConstructor
+public class UpstreamHealthIndicator implements HealthIndicator {
+
+    private final UpstreamHealthProber prober;
+
+    @Override
+    public Health health() {
+        Map<String, UpstreamStatus> statuses = prober.getStatuses();
+        if (statuses.isEmpty()) {
+            return Health.unknown().build();
+        }
+        List<String> degraded = statuses.entrySet().stream()
+                .filter(entry -> !entry.getValue().isUp())
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        return Health.up()
+                .withDetail("degraded", degraded)
+                .withDetails(statuses)
+                .build();
+    }
+}
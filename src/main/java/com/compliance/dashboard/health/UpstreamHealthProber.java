@@ -0,0 +1,188 @@
+package com.compliance.dashboard.health;
+
+import com.compliance.dashboard.client.IamAasClient;
+import com.compliance.dashboard.client.LatencyWindow;
+import com.compliance.dashboard.client.OcsApiClient;
+import com.compliance.dashboard.service.ComplianceService;
+import com.compliance.dashboard.service.VaultService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Periodically probes Vault, every IAMaaS token endpoint in use and every OCS
+ * region, keeping the latest status and rolling latency percentiles in memory.
+ * Health endpoints read the published statuses and never call upstream.
+ *
+ * A probe counts as up when the upstream answers with a status below 500;
+ * IAMaaS and OCS are probed without credentials, so 401/404 still mean reachable.
+ * Probes bypass the upstream scheduler and rate limiter so they keep
+ * reporting while a scan saturates them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UpstreamHealthProber {
+
+    static final String VAULT = "vault";
+
+    private final VaultService vaultService;
+    private final IamAasClient iamAasClient;
+    private final OcsApiClient ocsApiClient;
+    private final ComplianceService complianceService;
+    private final WebClient webClient;
+
+    @Value("${upstream.health.enabled:true}")
+    private boolean enabled;
+
+    @Value("${upstream.health.timeout:5s}")
+    private Duration timeout;
+
+    @Value("${upstream.health.window-size:100}")
+    private int windowSize;
+
+    private final Map<String, ProbeState> states = new ConcurrentHashMap<>();
+    private volatile Map<String, UpstreamStatus> statuses = Collections.emptyMap();
+
+    /**
+     * Probe every upstream concurrently and publish the results.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${upstream.health.interval:PT30S}")
+    public void probeAll() {
+        if (!enabled) {
+            return;
+        }
+        List<Mono<Void>> probes = new ArrayList<>();
+        probes.add(probe(VAULT, VAULT, vaultService.getVaultUri(), vaultService::healthStatus));
+        for (String url : iamAasClient.getKnownTokenUrls()) {
+            probes.add(probe("iamaas:" + url, "iamaas", url, () -> status(url)));
+        }
+        for (String region : complianceService.getRegions()) {
+            String url = ocsApiClient.buildBaseUrl(region) + "/v0/";
+            probes.add(probe("ocs:" + region, "ocs", url, () -> status(url)));
+        }
+
+        try {
+            Flux.merge(probes).blockLast(timeout.multipliedBy(2));
+        } catch (Exception e) {
+            log.warn("Upstream health probes did not finish: {}", e.getMessage());
+        }
+
+        Map<String, UpstreamStatus> published = new TreeMap<>();
+        states.forEach((name, state) -> {
+            if (state.status != null) {
+                published.put(name, state.status);
+            }
+        });
+        statuses = Collections.unmodifiableMap(published);
+    }
+
+    /**
+     * Latest status of every probed upstream, keyed by name
+     * ("vault", "iamaas:&lt;url&gt;", "ocs:&lt;region&gt;").
+     */
+    public Map<String, UpstreamStatus> getStatuses() {
+        return statuses;
+    }
+
+    /**
+     * Latest Vault status, or null before the first probe completes.
+     */
+    public UpstreamStatus getVaultStatus() {
+        return statuses.get(VAULT);
+    }
+
+    private Mono<Void> probe(String name, String type, String url, Supplier<Mono<Integer>> call) {
+        ProbeState state = states.computeIfAbsent(name, n -> new ProbeState(type, url, windowSize));
+        return Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return Mono.defer(call::get)
+                            .timeout(timeout)
+                            .doOnNext(httpStatus -> state.record(httpStatus, null, System.nanoTime() - start));
+                })
+                .onErrorResume(e -> {
+                    state.record(null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), 0);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Integer> status(String url) {
+        return webClient.get()
+                .uri(url)
+                .exchangeToMono(response -> response.releaseBody()
+                        .thenReturn(response.statusCode().value()));
+    }
+
+    /**
+     * Rolling probe history of one upstream.
+     */
+    private static class ProbeState {
+        final String type;
+        final String url;
+        final LatencyWindow latencies;
+        int consecutiveFailures;
+        LocalDateTime lastUp;
+        volatile UpstreamStatus status;
+
+        ProbeState(String type, String url, int windowSize) {
+            this.type = type;
+            this.url = url;
+            this.latencies = new LatencyWindow(windowSize);
+        }
+
+        synchronized void record(Integer httpStatus, String error, long nanos) {
+            LocalDateTime now = LocalDateTime.now();
+            boolean up = httpStatus != null && httpStatus < 500;
+            if (up) {
+                latencies.record(nanos);
+                consecutiveFailures = 0;
+                lastUp = now;
+            } else {
+                consecutiveFailures++;
+                if (error == null) {
+                    error = "HTTP " + httpStatus;
+                }
+            }
+            status = UpstreamStatus.builder()
+                    .type(type)
+                    .url(url)
+                    .up(up)
+                    .httpStatus(httpStatus)
+                    .error(error)
+                    .lastChecked(now)
+                    .lastUp(lastUp)
+                    .consecutiveFailures(consecutiveFailures)
+                    .latencyMs(up ? millis(nanos) : null)
+                    .p50Ms(percentile(50))
+                    .p95Ms(percentile(95))
+                    .p99Ms(percentile(99))
+                    .samples(latencies.count())
+                    .build();
+        }
+
+        private Double percentile(double percentile) {
+            long nanos = latencies.percentile(percentile);
+            return nanos >= 0 ? millis(nanos) : null;
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.compliance.dashboard.health;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result of the latest probe of one upstream, with latency percentiles over
+ * recent successful probes. Immutable, so it can be served without locking.
+ */
+@Value
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UpstreamStatus {
+
+    /** "vault", "iamaas" or "ocs". */
+    String type;
+
+    String url;
+
+    boolean up;
+
+    @JsonProperty("http_status")
+    Integer httpStatus;
+
+    String error;
+
+    @JsonProperty("last_checked")
+    LocalDateTime lastChecked;
+
+    @JsonProperty("last_up")
+    LocalDateTime lastUp;
+
+    @JsonProperty("consecutive_failures")
+    int consecutiveFailures;
+
+    @JsonProperty("latency_ms")
+    Double latencyMs;
+
+    @JsonProperty("p50_ms")
+    Double p50Ms;
+
+    @JsonProperty("p95_ms")
+    Double p95Ms;
+
+    @JsonProperty("p99_ms")
+    Double p99Ms;
+
+    int samples;
+}
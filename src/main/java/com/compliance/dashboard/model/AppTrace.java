@@ -0,0 +1,29 @@
+package com.compliance.dashboard.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Stage timings of one app's check, attached to its result in debug mode.
+ * The Vault config fetch is reported here for single-app checks and on the
+ * {@link ScanTrace} for full scans, where it is shared by all apps.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AppTrace {
+    
+    @JsonProperty("total_ms")
+    private double totalMs;
+    
+    @JsonProperty("vault_config")
+    private StageTrace vaultConfig;
+    
+    @JsonProperty("iamaas_token")
+    private StageTrace iamaasToken;
+    
+    private Map<String, RegionTrace> regions = new ConcurrentSkipListMap<>();
+}
@@ -0,0 +1,24 @@
+package com.compliance.dashboard.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Body of requests that check a list of apps.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppsRequest {
+
+    /** Apps to check; null or empty for all apps. */
+    private List<String> apps;
+
+    /** Attach stage timings to the results. */
+    private boolean debug;
+}
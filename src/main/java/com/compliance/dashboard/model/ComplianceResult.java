@@ -14,7 +14,7 @@ import java.util.Map;
  * Complete compliance result for an application across all regions.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -34,4 +34,7 @@ public class ComplianceResult {
     private Map<String, RegionResult> regions;
     
     private String error;
+    
+    /** Stage timings, only for debug checks. */
+    private AppTrace trace;
 }
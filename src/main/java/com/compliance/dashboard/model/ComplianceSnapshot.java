@@ -0,0 +1,48 @@
+package com.compliance.dashboard.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Compliance results for all applications at a point in time.
+ * A snapshot restored from disk is served as stale until a fresh scan replaces it.
+ * The ISO week is the one all servers were classified against; when it rolls
+ * over, the snapshot is reclassified in memory from its own server inventory.
+ * In sharded mode, an all-apps snapshot covers only the apps of the replica
+ * that scanned it and is marked partial.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ComplianceSnapshot {
+    
+    private LocalDateTime timestamp;
+    
+    @JsonProperty("current_week")
+    private int currentWeek;
+    
+    @JsonProperty("current_year")
+    private int currentYear;
+    
+    private Map<String, ComplianceResult> apps;
+    
+    private boolean stale;
+    
+    /** Set when the snapshot covers only the apps of {@link #shard}. */
+    private Boolean partial;
+    
+    /** Replica whose apps a partial snapshot covers. */
+    private String shard;
+    
+    /** Scan-wide timings, only for debug scans. */
+    private ScanTrace trace;
+}
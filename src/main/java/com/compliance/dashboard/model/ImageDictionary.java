@@ -0,0 +1,91 @@
+package com.compliance.dashboard.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interned images of one region: each distinct (image ID, image name) pair is
+ * stored once, with its build year and week as primitive columns.
+ * Servers refer to images by index. Appending is only allowed until
+ * {@link #freeze()}; after that the dictionary is immutable.
+ */
+public class ImageDictionary {
+
+    /** Year/week column value for images without parsable week info. */
+    public static final int NONE = 0;
+
+    private String[] ids = new String[8];
+    private String[] names = new String[8];
+    private int[] years = new int[8];
+    private int[] weeks = new int[8];
+    private int size;
+    private Map<String, Integer> refs = new HashMap<>();
+
+    /**
+     * Index of the given image, adding it if it is new.
+     */
+    public int intern(String imageId, String imageName, Integer year, Integer week) {
+        if (refs == null) {
+            throw new IllegalStateException("Image dictionary is frozen");
+        }
+        String key = imageId + '\n' + imageName;
+        Integer ref = refs.get(key);
+        if (ref != null) {
+            return ref;
+        }
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            years = Arrays.copyOf(years, capacity);
+            weeks = Arrays.copyOf(weeks, capacity);
+        }
+        ids[size] = imageId;
+        names[size] = imageName;
+        years[size] = year != null ? year : NONE;
+        weeks[size] = week != null ? week : NONE;
+        refs.put(key, size);
+        return size++;
+    }
+
+    /**
+     * Trim the columns and drop the lookup map; no more images can be added.
+     */
+    public void freeze() {
+        if (refs == null) {
+            return;
+        }
+        ids = Arrays.copyOf(ids, size);
+        names = Arrays.copyOf(names, size);
+        years = Arrays.copyOf(years, size);
+        weeks = Arrays.copyOf(weeks, size);
+        refs = null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getId(int ref) {
+        return ids[ref];
+    }
+
+    public String getName(int ref) {
+        return names[ref];
+    }
+
+    /**
+     * Build year, or {@link #NONE}.
+     */
+    public int getYear(int ref) {
+        return years[ref];
+    }
+
+    /**
+     * Build week, or {@link #NONE}.
+     */
+    public int getWeek(int ref) {
+        return weeks[ref];
+    }
+}
@@ -11,6 +11,7 @@ import java.util.List;
 
 /**
  * Compliance results for a specific region.
+ * Server lists built by a scan are compact {@link ServerTable}s.
  */
 @Data
 @Builder
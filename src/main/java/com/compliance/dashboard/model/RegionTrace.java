@@ -0,0 +1,28 @@
+package com.compliance.dashboard.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Stage timings of one region of a debug-traced check.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RegionTrace {
+    
+    @JsonProperty("total_ms")
+    private double totalMs;
+    
+    @JsonProperty("servers_detail")
+    private StageTrace serversDetail;
+    
+    @JsonProperty("image_resolution")
+    private StageTrace imageResolution;
+    
+    private StageTrace classification;
+    
+    /** App whose fetch of the shared account inventory this region used, if not its own. */
+    @JsonProperty("inventory_fetched_by")
+    private String inventoryFetchedBy;
+}
@@ -0,0 +1,20 @@
+package com.compliance.dashboard.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Timings of a debug full scan that are not specific to one app; per-app
+ * stages are on each result's {@link AppTrace}.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScanTrace {
+    
+    @JsonProperty("total_ms")
+    private double totalMs;
+    
+    @JsonProperty("vault_config")
+    private StageTrace vaultConfig;
+}
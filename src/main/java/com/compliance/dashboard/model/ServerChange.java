@@ -0,0 +1,40 @@
+package com.compliance.dashboard.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A server whose presence or compliance changed between two snapshots.
+ * Image and reason are taken from the newer snapshot, or from the older
+ * one for removed servers.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ServerChange {
+
+    @JsonProperty("app_name")
+    private String appName;
+
+    private String region;
+
+    private String name;
+
+    @JsonProperty("image_name")
+    private String imageName;
+
+    @JsonProperty("image_id")
+    private String imageId;
+
+    private String reason;
+
+    /** Image in the older snapshot, only when a changed server was re-imaged. */
+    @JsonProperty("previous_image_name")
+    private String previousImageName;
+}
@@ -0,0 +1,45 @@
+package com.compliance.dashboard.model;
+
+/**
+ * Compliance status of a server, with the reason reported for non-compliant ones.
+ */
+public enum ServerStatus {
+
+    COMPLIANT(null),
+    NO_WEEK_INFO("No week info or unparsable"),
+    OLDER("Older than current week"),
+    FUTURE("Future week/year");
+
+    private static final ServerStatus[] VALUES = values();
+
+    private final String reason;
+
+    ServerStatus(String reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * Reason reported for this status; null when compliant.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    static ServerStatus of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Status for a reported reason.
+     *
+     * @throws IllegalArgumentException if the reason is unknown
+     */
+    public static ServerStatus fromReason(String reason) {
+        for (ServerStatus status : VALUES) {
+            if (reason == null ? status.reason == null : reason.equals(status.reason)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compliance reason: " + reason);
+    }
+}
@@ -0,0 +1,160 @@
+package com.compliance.dashboard.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compact, immutable list of servers in struct-of-arrays layout: server names
+ * packed into one string, an image reference into the region's shared
+ * {@link ImageDictionary} and a status code per server.
+ *
+ * Servers are sorted by name (unnamed ones first), so tables of two snapshots
+ * can be compared with a linear merge.
+ *
+ * Elements are materialized as {@link ServerInfo} only on access; JSON is
+ * written straight from the columns in the same shape as a list of
+ * {@link ServerInfo}.
+ */
+@JsonSerialize(using = ServerTable.Serializer.class)
+public class ServerTable extends AbstractList<ServerInfo> implements RandomAccess {
+
+    /** Row order of every table. */
+    public static final Comparator<String> NAME_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final ImageDictionary images;
+    private final String names;
+    private final int[] nameEnds;
+    private final BitSet nullNames;
+    private final int[] imageRefs;
+    private final byte[] statuses;
+
+    private ServerTable(ImageDictionary images, String names, int[] nameEnds, BitSet nullNames,
+                        int[] imageRefs, byte[] statuses) {
+        this.images = images;
+        this.names = names;
+        this.nameEnds = nameEnds;
+        this.nullNames = nullNames;
+        this.imageRefs = imageRefs;
+        this.statuses = statuses;
+    }
+
+    /**
+     * Pack classified servers sorted by name, interning their images into the given dictionary.
+     */
+    public static ServerTable of(List<ServerInfo> servers, ImageDictionary images) {
+        servers = new ArrayList<>(servers);
+        servers.sort(Comparator.comparing(ServerInfo::getName, NAME_ORDER));
+        int size = servers.size();
+        StringBuilder names = new StringBuilder();
+        int[] nameEnds = new int[size];
+        BitSet nullNames = null;
+        int[] imageRefs = new int[size];
+        byte[] statuses = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+            ServerInfo server = servers.get(i);
+            if (server.getName() != null) {
+                names.append(server.getName());
+            } else {
+                if (nullNames == null) {
+                    nullNames = new BitSet(size);
+                }
+                nullNames.set(i);
+            }
+            nameEnds[i] = names.length();
+            imageRefs[i] = images.intern(server.getImageId(), server.getImageName(),
+                    server.getImageYear(), server.getImageWeek());
+            statuses[i] = (byte) ServerStatus.fromReason(server.getReason()).ordinal();
+        }
+        return new ServerTable(images, names.toString(), nameEnds, nullNames, imageRefs, statuses);
+    }
+
+    @Override
+    public int size() {
+        return statuses.length;
+    }
+
+    @Override
+    public ServerInfo get(int index) {
+        int ref = imageRef(index);
+        int year = images.getYear(ref);
+        int week = images.getWeek(ref);
+        return ServerInfo.builder()
+                .name(getName(index))
+                .imageId(images.getId(ref))
+                .imageName(images.getName(ref))
+                .imageYear(year != ImageDictionary.NONE ? year : null)
+                .imageWeek(week != ImageDictionary.NONE ? week : null)
+                .reason(getStatus(index).getReason())
+                .build();
+    }
+
+    public String getName(int index) {
+        if (nullNames != null && nullNames.get(index)) {
+            return null;
+        }
+        int start = index > 0 ? nameEnds[index - 1] : 0;
+        return names.substring(start, nameEnds[index]);
+    }
+
+    public ServerStatus getStatus(int index) {
+        return ServerStatus.of(statuses[index]);
+    }
+
+    /**
+     * Reference of the server's image in {@link #getImages()}.
+     */
+    public int imageRef(int index) {
+        if (index < 0 || index >= statuses.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + statuses.length);
+        }
+        return imageRefs[index];
+    }
+
+    public ImageDictionary getImages() {
+        return images;
+    }
+
+    /**
+     * Writes the table as a JSON array of server objects, omitting null fields.
+     */
+    public static class Serializer extends JsonSerializer<ServerTable> {
+        @Override
+        public void serialize(ServerTable table, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            ImageDictionary images = table.images;
+            gen.writeStartArray(table, table.size());
+            for (int i = 0; i < table.size(); i++) {
+                int ref = table.imageRefs[i];
+                gen.writeStartObject();
+                writeString(gen, "name", table.getName(i));
+                writeString(gen, "image_name", images.getName(ref));
+                writeString(gen, "image_id", images.getId(ref));
+                if (images.getYear(ref) != ImageDictionary.NONE) {
+                    gen.writeNumberField("image_year", images.getYear(ref));
+                }
+                if (images.getWeek(ref) != ImageDictionary.NONE) {
+                    gen.writeNumberField("image_week", images.getWeek(ref));
+                }
+                writeString(gen, "reason", table.getStatus(i).getReason());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        private void writeString(JsonGenerator gen, String field, String value) throws IOException {
+            if (value != null) {
+                gen.writeStringField(field, value);
+            }
+        }
+    }
+}
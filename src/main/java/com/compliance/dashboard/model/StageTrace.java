@@ -0,0 +1,46 @@
+package com.compliance.dashboard.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Time spent in one stage of a debug-traced check, with the upstream
+ * requests it made. Counters that do not apply to a stage are omitted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StageTrace {
+    
+    private double ms;
+    
+    /** Upstream requests sent, including retries and hedges. */
+    private Integer calls;
+    
+    private Integer retries;
+    
+    private Integer hedges;
+    
+    /** Response body bytes received. */
+    private Long bytes;
+    
+    /** Servers listed or classified, or distinct images resolved. */
+    private Integer items;
+    
+    @JsonProperty("cache_hits")
+    private Integer cacheHits;
+    
+    /** Images fetched from OCS because they were not cached. */
+    private Integer fetches;
+    
+    /** Image fetches that returned no name. */
+    private Integer failed;
+    
+    private String error;
+}
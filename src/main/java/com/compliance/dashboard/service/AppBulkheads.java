@@ -0,0 +1,227 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.client.UpstreamDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Per-app bulkheads for compliance checks.
+ *
+ * Each app may run at most {@code per-app-concurrency} background checks (scans
+ * and jobs) at once, and as many interactive checks a user is waiting for; a
+ * check beyond its share is rejected immediately instead of queueing. Keeping
+ * the shares apart means a running scan cannot get a user's check rejected.
+ *
+ * A check that runs longer than {@code max-wall-time} fails with an error and
+ * its caller moves on. The abandoned work is not interrupted (interrupts can close the
+ * application jar mid class load); instead its upstream calls share the same
+ * deadline through {@link UpstreamDeadline}, so in-flight requests and retry
+ * delays are cancelled and the check gives back its thread and its slot in the
+ * bulkhead at about the wall time, rather than after the upstream retries run out.
+ *
+ * Full scans run apps concurrently on a pool of {@code max-concurrent-apps}
+ * threads, so one slow app no longer delays the others. Interactive checks run
+ * on their own threads and never wait in that pool's queue.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AppBulkheads {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${compliance.bulkhead.max-concurrent-apps:8}")
+    private int maxConcurrentApps;
+
+    @Value("${compliance.bulkhead.per-app-concurrency:2}")
+    private int perAppConcurrency;
+
+    @Value("${compliance.bulkhead.max-wall-time:PT5M}")
+    private Duration maxWallTime;
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor scanExecutor;
+    private ExecutorService checkExecutor;
+    private ScheduledExecutorService watchdog;
+
+    @PostConstruct
+    public void init() {
+        scanExecutor = new ThreadPoolExecutor(maxConcurrentApps, maxConcurrentApps, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("app-scan-"));
+        scanExecutor.allowCoreThreadTimeOut(true);
+        checkExecutor = Executors.newCachedThreadPool(daemonThreads("app-check-"));
+        watchdog = Executors.newSingleThreadScheduledExecutor(daemonThreads("app-bulkhead-watchdog-"));
+        Gauge.builder("compliance.bulkhead.scan.queued", scanExecutor, executor -> executor.getQueue().size())
+                .description("App checks of running scans waiting for a scan thread")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanExecutor.shutdownNow();
+        checkExecutor.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Run an app's background check on the scan pool, inside the app's bulkhead.
+     * The wall-time limit starts when the check starts, not while it is queued.
+     * A full bulkhead or an exceeded wall time fails the returned future.
+     */
+    public <T> CompletableFuture<T> submit(String appName, Supplier<T> check) {
+        return run(appName, check, scanExecutor, false);
+    }
+
+    /**
+     * Run an app's check for a waiting user inside the app's interactive share.
+     * The check runs on its own thread, bypassing the scan pool's queue.
+     * A full share or an exceeded wall time fails the returned future.
+     */
+    public <T> CompletableFuture<T> submitInteractive(String appName, Supplier<T> check) {
+        return run(appName, check, checkExecutor, true);
+    }
+
+    /**
+     * Run a single app's check for a waiting user inside the app's interactive
+     * share and wait for it. The check runs on its own thread, bypassing the
+     * scan pool's queue.
+     *
+     * @throws RuntimeException if the app's share is exhausted, the check fails
+     *                          or it exceeds the maximum wall time
+     */
+    public <T> T execute(String appName, Supplier<T> check) {
+        try {
+            return run(appName, check, checkExecutor, true).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * @param interactive Whether the check takes a slot of the interactive share rather than the background one
+     */
+    private <T> CompletableFuture<T> run(String appName, Supplier<T> check, Executor executor, boolean interactive) {
+        Bulkhead bulkhead = bulkheads.computeIfAbsent(appName, this::createBulkhead);
+        AtomicInteger share = interactive ? bulkhead.interactive : bulkhead.background;
+        if (!bulkhead.tryEnter(share)) {
+            bulkhead.rejected.increment();
+            log.warn("Bulkhead full for app {}: {} {} checks already running", appName, perAppConcurrency,
+                    interactive ? "interactive" : "background");
+            return CompletableFuture.failedFuture(new RuntimeException("Too many concurrent checks for app "
+                    + appName + " (limit " + perAppConcurrency + ")"));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                ScheduledFuture<?> timer = watchdog.schedule(() -> timeOut(appName, bulkhead, result),
+                        maxWallTime.toMillis(), TimeUnit.MILLISECONDS);
+                try {
+                    result.complete(UpstreamDeadline.callWithin(maxWallTime, check));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    timer.cancel(false);
+                    share.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            share.decrementAndGet();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private void timeOut(String appName, Bulkhead bulkhead, CompletableFuture<?> result) {
+        if (result.completeExceptionally(
+                new RuntimeException("Compliance check exceeded max wall time of " + maxWallTime))) {
+            bulkhead.timeouts.increment();
+            log.warn("Compliance check for app {} exceeded max wall time of {}", appName, maxWallTime);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private Bulkhead createBulkhead(String appName) {
+        Bulkhead bulkhead = new Bulkhead(
+                Counter.builder("compliance.bulkhead.rejected")
+                        .description("Checks rejected because the app's bulkhead was full")
+                        .tag("app", appName)
+                        .register(meterRegistry),
+                Counter.builder("compliance.bulkhead.timeouts")
+                        .description("Checks abandoned after exceeding the max wall time")
+                        .tag("app", appName)
+                        .register(meterRegistry));
+        Gauge.builder("compliance.bulkhead.active", bulkhead, Bulkhead::active)
+                .description("Checks currently running in the app's bulkhead")
+                .tag("app", appName)
+                .register(meterRegistry);
+        return bulkhead;
+    }
+
+    /**
+     * Occupancy of both shares and outcome counters of one app's bulkhead.
+     */
+    private class Bulkhead {
+        final AtomicInteger background = new AtomicInteger();
+        final AtomicInteger interactive = new AtomicInteger();
+        final Counter rejected;
+        final Counter timeouts;
+
+        Bulkhead(Counter rejected, Counter timeouts) {
+            this.rejected = rejected;
+            this.timeouts = timeouts;
+        }
+
+        boolean tryEnter(AtomicInteger share) {
+            while (true) {
+                int current = share.get();
+                if (current >= perAppConcurrency) {
+                    return false;
+                }
+                if (share.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        double active() {
+            return background.get() + interactive.get();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.model.RegionResult;
+import com.compliance.dashboard.model.ServerInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes compliance results as one row per server, region by region, flushing
+ * after each region so clients receive rows while the scan is still running.
+ * Regions and apps that could not be checked produce a single row with status
+ * "error", so gaps are visible in the export.
+ */
+public class ComplianceExportWriter {
+
+    private static final String[] COLUMNS = {
+            "app_name", "region", "name", "image_id", "image_name",
+            "image_year", "image_week", "status", "reason"
+    };
+
+    /**
+     * Supported export formats.
+     */
+    public enum Format {
+        CSV("text/csv"),
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    private final Format format;
+    private final Boolean compliant;
+    private final Writer writer;
+    private final JsonGenerator json;
+    private long rows;
+
+    /**
+     * @param format Output format
+     * @param compliant Only compliant (true) or non-compliant (false) servers; null for all
+     * @param out Destination stream
+     * @param objectMapper Mapper whose factory writes NDJSON rows
+     */
+    public ComplianceExportWriter(Format format, Boolean compliant, OutputStream out, ObjectMapper objectMapper)
+            throws IOException {
+        this.format = format;
+        this.compliant = compliant;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.json = format == Format.NDJSON ? objectMapper.getFactory().createGenerator(writer) : null;
+        if (json != null) {
+            // Rows are newline-separated, not space-separated
+            json.setRootValueSeparator(null);
+        }
+        if (format == Format.CSV) {
+            writeRow((Object[]) COLUMNS);
+        }
+    }
+
+    /**
+     * Write the rows of one region and flush them to the client.
+     *
+     * @param region Region name, or null for an app-level error
+     */
+    public void write(String appName, String region, RegionResult result) {
+        try {
+            if (result.getError() != null) {
+                writeRow(appName, region, null, null, null, null, null, "error", result.getError());
+            } else {
+                if (compliant == null || compliant) {
+                    writeServers(appName, region, result.getGoodServers());
+                }
+                if (compliant == null || !compliant) {
+                    writeServers(appName, region, result.getBadServers());
+                }
+            }
+            flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flush everything written so far.
+     */
+    public void flush() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Server rows written so far, excluding the header and error rows.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    private void writeServers(String appName, String region, List<ServerInfo> servers) throws IOException {
+        if (servers == null) {
+            return;
+        }
+        for (int i = 0; i < servers.size(); i++) {
+            ServerInfo server = servers.get(i);
+            writeRow(appName, region, server.getName(), server.getImageId(), server.getImageName(),
+                    server.getImageYear(), server.getImageWeek(),
+                    server.getReason() == null ? "compliant" : "non_compliant", server.getReason());
+            rows++;
+        }
+    }
+
+    private void writeRow(Object... values) throws IOException {
+        if (format == Format.NDJSON) {
+            json.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (values[i] instanceof Integer) {
+                    json.writeNumberField(COLUMNS[i], (Integer) values[i]);
+                } else if (values[i] != null) {
+                    json.writeStringField(COLUMNS[i], values[i].toString());
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+            return;
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(csvField(values[i].toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Quote a CSV field when it contains a separator, quote or line break (RFC 4180).
+     */
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,134 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.model.ComplianceSnapshot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An asynchronous compliance scan and, once it has finished, its outcome.
+ */
+public class ComplianceJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final String id;
+    private final String key;
+    private final List<String> apps;
+    private final boolean debug;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final ScanProgress progress = new ScanProgress();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile ComplianceSnapshot result;
+    private volatile String error;
+
+    /**
+     * @param key Identifies jobs doing the same work, see {@link ComplianceJobService}
+     * @param apps Apps to check, null for all
+     */
+    ComplianceJob(String id, String key, List<String> apps, boolean debug) {
+        this.id = id;
+        this.key = key;
+        this.apps = apps;
+        this.debug = debug;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    List<String> getApps() {
+        return apps;
+    }
+
+    boolean isDebug() {
+        return debug;
+    }
+
+    ScanProgress getProgress() {
+        return progress;
+    }
+
+    LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    void started() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    void succeeded(ComplianceSnapshot snapshot) {
+        result = snapshot;
+        finishedAt = LocalDateTime.now();
+        status = Status.SUCCEEDED;
+    }
+
+    void failed(String message) {
+        error = message;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    /**
+     * Response describing the job.
+     *
+     * @param resultTtl How long a finished job is kept
+     * @param withResult Include the scan result of a succeeded job
+     */
+    public Map<String, Object> describe(Duration resultTtl, boolean withResult) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", id);
+        response.put("status", status.name().toLowerCase());
+        response.put("apps", apps != null ? apps : "all");
+        response.put("debug", debug);
+        response.put("created_at", createdAt);
+        if (startedAt != null) {
+            response.put("started_at", startedAt);
+        }
+        LocalDateTime finished = finishedAt;
+        if (finished != null) {
+            response.put("finished_at", finished);
+            response.put("expires_at", finished.plus(resultTtl));
+        }
+
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("apps_total", progress.getAppsTotal());
+        counts.put("apps_completed", progress.getAppsCompleted());
+        counts.put("regions_total", progress.getRegionsTotal());
+        counts.put("regions_completed", progress.getRegionsCompleted());
+        response.put("progress", counts);
+
+        if (error != null) {
+            response.put("error", error);
+        }
+        if (withResult && result != null) {
+            response.put("result", result);
+        }
+        return response;
+    }
+}
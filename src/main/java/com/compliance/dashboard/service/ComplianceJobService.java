@@ -0,0 +1,179 @@
+package com.compliance.dashboard.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs compliance scans as asynchronous jobs, so scans that outlast proxy and
+ * client timeouts are not lost with the connection.
+ *
+ * Jobs run on a pool of {@code max-concurrent} threads with at most
+ * {@code queue-size} jobs waiting; further submissions are rejected. A job
+ * for the same apps and debug flag as one still queued or running is not
+ * started again: the submitter gets the running job instead. Finished jobs
+ * and their results are kept for {@code result-ttl}, and at most
+ * {@code max-finished} of them are kept at once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ComplianceJobService {
+
+    private final ComplianceService complianceService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${compliance.jobs.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${compliance.jobs.queue-size:16}")
+    private int queueSize;
+
+    @Value("${compliance.jobs.result-ttl:PT1H}")
+    private Duration resultTtl;
+
+    @Value("${compliance.jobs.max-finished:100}")
+    private int maxFinished;
+
+    private final Map<String, ComplianceJob> jobs = new ConcurrentHashMap<>();
+    /** Queued and running jobs by key. */
+    private final Map<String, ComplianceJob> active = new HashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+                    Thread thread = new Thread(runnable, "compliance-job-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        Gauge.builder("compliance.jobs.queued", executor, pool -> pool.getQueue().size())
+                .description("Compliance jobs waiting for a job thread")
+                .register(meterRegistry);
+        Gauge.builder("compliance.jobs.running", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Compliance jobs running")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start a scan of the listed apps, or return the identical job already
+     * queued or running.
+     *
+     * @param apps Apps to check, null or empty for all apps
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public synchronized ComplianceJob submit(List<String> apps, boolean debug) {
+        List<String> appNames = apps == null || apps.isEmpty()
+                ? null
+                : apps.stream().map(String::trim).distinct().sorted().toList();
+        String key = (debug ? "debug:" : "") + (appNames != null ? String.join(",", appNames) : "*");
+        ComplianceJob existing = active.get(key);
+        if (existing != null) {
+            log.info("Compliance job {} already covers {}", existing.getId(), key);
+            return existing;
+        }
+
+        ComplianceJob job = new ComplianceJob(UUID.randomUUID().toString(), key, appNames, debug);
+        executor.execute(() -> run(job));
+        jobs.put(job.getId(), job);
+        active.put(key, job);
+        log.info("Compliance job {} queued for {}", job.getId(), key);
+        return job;
+    }
+
+    /**
+     * Job by id, or null if unknown or expired.
+     */
+    public ComplianceJob find(String id) {
+        ComplianceJob job = jobs.get(id);
+        return job != null && !expired(job, LocalDateTime.now()) ? job : null;
+    }
+
+    /**
+     * Jobs kept, newest first.
+     */
+    public List<ComplianceJob> list() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ComplianceJob> kept = new ArrayList<>();
+        for (ComplianceJob job : jobs.values()) {
+            if (!expired(job, now)) {
+                kept.add(job);
+            }
+        }
+        kept.sort(Comparator.comparing(ComplianceJob::getCreatedAt).reversed());
+        return kept;
+    }
+
+    public Duration getResultTtl() {
+        return resultTtl;
+    }
+
+    /**
+     * Drop expired jobs, then the oldest finished ones beyond {@code max-finished}.
+     */
+    @Scheduled(fixedDelayString = "${compliance.jobs.cleanup-interval:PT1M}")
+    public void evictFinished() {
+        LocalDateTime now = LocalDateTime.now();
+        jobs.values().removeIf(job -> expired(job, now));
+        List<ComplianceJob> finished = new ArrayList<>();
+        for (ComplianceJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() > maxFinished) {
+            finished.sort(Comparator.comparing(ComplianceJob::getFinishedAt));
+            finished.subList(0, finished.size() - maxFinished).forEach(job -> jobs.remove(job.getId()));
+        }
+    }
+
+    private void run(ComplianceJob job) {
+        job.started();
+        long start = System.currentTimeMillis();
+        try {
+            job.succeeded(complianceService.checkAppsCompliance(job.getApps(), job.isDebug(), job.getProgress()));
+            log.info("Compliance job {} completed in {} ms", job.getId(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Compliance job {} failed", job.getId(), e);
+            job.failed(e.getMessage() != null ? e.getMessage() : e.toString());
+        } finally {
+            synchronized (this) {
+                active.remove(job.getKey(), job);
+            }
+        }
+    }
+
+    private boolean expired(ComplianceJob job, LocalDateTime now) {
+        LocalDateTime finishedAt = job.getFinishedAt();
+        return finishedAt != null && finishedAt.plus(resultTtl).isBefore(now);
+    }
+}
@@ -0,0 +1,103 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.config.CompliancePolicyProperties;
+import com.compliance.dashboard.model.ServerStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.util.Map;
+
+/**
+ * Immutable compliance policy: how a server's image build week is judged
+ * against the current ISO week. Images built in the current week are
+ * compliant, images from a later week are not, and images from an earlier week
+ * are compliant only within the policy's grace period for the server's app.
+ */
+@Value
+public class CompliancePolicy {
+
+    /** Only images built in the current ISO week are compliant. */
+    public static final CompliancePolicy CURRENT_WEEK = new CompliancePolicy("current-week", 0, Map.of());
+
+    String name;
+
+    @JsonProperty("grace_weeks")
+    int graceWeeks;
+
+    @JsonProperty("app_grace_weeks")
+    Map<String, Integer> appGraceWeeks;
+
+    /**
+     * Policy from its configured definition.
+     *
+     * @throws IllegalArgumentException if a grace period is negative
+     */
+    public static CompliancePolicy of(String name, CompliancePolicyProperties.Definition definition) {
+        Map<String, Integer> appGraceWeeks = definition.getAppGraceWeeks() != null
+                ? Map.copyOf(definition.getAppGraceWeeks())
+                : Map.of();
+        if (definition.getGraceWeeks() < 0 || appGraceWeeks.values().stream().anyMatch(weeks -> weeks < 0)) {
+            throw new IllegalArgumentException("Grace weeks must not be negative in policy " + name);
+        }
+        return new CompliancePolicy(name, definition.getGraceWeeks(), appGraceWeeks);
+    }
+
+    /**
+     * Grace period applied to the given app's servers.
+     */
+    public int graceWeeksFor(String appName) {
+        Integer weeks = appName != null ? appGraceWeeks.get(appName) : null;
+        return weeks != null ? weeks : graceWeeks;
+    }
+
+    /**
+     * Classify an image build week.
+     *
+     * @param appName App the server belongs to
+     * @param imageYear ISO week-based year the image was built in, null if unknown
+     * @param imageWeek ISO week the image was built in, null if unknown
+     */
+    public ServerStatus classify(String appName, Integer imageYear, Integer imageWeek,
+                                 int currentYear, int currentWeek) {
+        if (imageYear == null || imageWeek == null) {
+            return ServerStatus.NO_WEEK_INFO;
+        }
+        if (imageYear == currentYear && imageWeek == currentWeek) {
+            return ServerStatus.COMPLIANT;
+        }
+        boolean older = imageYear < currentYear || (imageYear == currentYear && imageWeek < currentWeek);
+        if (!older) {
+            return ServerStatus.FUTURE;
+        }
+        int grace = graceWeeksFor(appName);
+        return grace > 0 && weeksBetween(imageYear, imageWeek, currentYear, currentWeek) <= grace
+                ? ServerStatus.COMPLIANT
+                : ServerStatus.OLDER;
+    }
+
+    /**
+     * Whole ISO weeks from one week to a later one; effectively infinite
+     * when a week does not exist in its year.
+     */
+    private static long weeksBetween(int fromYear, int fromWeek, int toYear, int toWeek) {
+        try {
+            return ChronoUnit.WEEKS.between(mondayOf(fromYear, fromWeek), mondayOf(toYear, toWeek));
+        } catch (DateTimeException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static LocalDate mondayOf(int year, int week) {
+        // January 4th always falls in ISO week 1 of its year
+        LocalDate firstWeek = LocalDate.of(year, 1, 4);
+        if (week < 1 || week > firstWeek.range(IsoFields.WEEK_OF_WEEK_BASED_YEAR).getMaximum()) {
+            throw new DateTimeException("No ISO week " + week + " in " + year);
+        }
+        return firstWeek.with(IsoFields.WEEK_OF_WEEK_BASED_YEAR, week).with(DayOfWeek.MONDAY);
+    }
+}
@@ -0,0 +1,222 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.config.CompliancePolicyProperties;
+import com.compliance.dashboard.model.ComplianceResult;
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import com.compliance.dashboard.model.ImageDictionary;
+import com.compliance.dashboard.model.RegionResult;
+import com.compliance.dashboard.model.ServerInfo;
+import com.compliance.dashboard.model.ServerStatus;
+import com.compliance.dashboard.model.ServerTable;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Configured compliance policies, and what-if evaluation of any policy over a
+ * snapshot's inventory. Evaluation works on the snapshot in memory: each
+ * distinct image of a region is classified once and its servers are counted,
+ * so no upstream calls are made.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CompliancePolicyEngine {
+
+    private final CompliancePolicyProperties properties;
+
+    private Map<String, CompliancePolicy> policies;
+    private CompliancePolicy active;
+
+    @PostConstruct
+    public void init() {
+        Map<String, CompliancePolicy> configured = new LinkedHashMap<>();
+        configured.put(CompliancePolicy.CURRENT_WEEK.getName(), CompliancePolicy.CURRENT_WEEK);
+        properties.getDefinitions().forEach((name, definition) ->
+                configured.put(name, CompliancePolicy.of(name, definition)));
+        policies = Collections.unmodifiableMap(configured);
+        
+        active = policies.get(properties.getActive());
+        if (active == null) {
+            throw new IllegalStateException("Unknown active compliance policy: " + properties.getActive()
+                    + " (defined: " + String.join(", ", policies.keySet()) + ")");
+        }
+        log.info("Compliance policies: {}, active: {}", policies.keySet(), active.getName());
+    }
+
+    /**
+     * Policy used to classify servers during scans.
+     */
+    public CompliancePolicy getActive() {
+        return active;
+    }
+
+    /**
+     * Configured policy by name, or null if there is none.
+     */
+    public CompliancePolicy find(String name) {
+        return policies.get(name);
+    }
+
+    public Collection<CompliancePolicy> getPolicies() {
+        return policies.values();
+    }
+
+    /**
+     * Evaluate a policy over a snapshot, against the snapshot's ISO week.
+     * Besides the totals, reports how many servers change status compared with
+     * the snapshot's own classification.
+     *
+     * @return Overall, per-app and per-region counts under the policy
+     */
+    public Map<String, Object> evaluate(ComplianceSnapshot snapshot, CompliancePolicy policy) {
+        long start = System.nanoTime();
+        Counts overall = new Counts();
+        List<Map<String, Object>> byApp = new ArrayList<>();
+        
+        for (Map.Entry<String, ComplianceResult> entry : new TreeMap<>(snapshot.getApps()).entrySet()) {
+            String appName = entry.getKey();
+            ComplianceResult result = entry.getValue();
+            Map<String, Object> app = new LinkedHashMap<>();
+            app.put("app_name", appName);
+            
+            if (result.getError() != null || result.getRegions() == null) {
+                app.put("error", result.getError());
+                byApp.add(app);
+                continue;
+            }
+            
+            Counts appCounts = new Counts();
+            Map<String, Object> regions = new TreeMap<>();
+            for (Map.Entry<String, RegionResult> regionEntry : result.getRegions().entrySet()) {
+                RegionResult region = regionEntry.getValue();
+                if (region.getError() != null) {
+                    regions.put(regionEntry.getKey(), Map.of("error", region.getError()));
+                    continue;
+                }
+                Counts regionCounts = new Counts();
+                for (List<ServerInfo> servers : Arrays.asList(region.getGoodServers(), region.getBadServers())) {
+                    count(servers, appName, policy, snapshot, regionCounts);
+                }
+                regions.put(regionEntry.getKey(), regionCounts.toMap());
+                appCounts.add(regionCounts);
+            }
+            overall.add(appCounts);
+            app.putAll(appCounts.toMap());
+            app.put("regions", regions);
+            byApp.add(app);
+        }
+        
+        Map<String, Object> evaluation = new LinkedHashMap<>();
+        evaluation.put("policy", policy);
+        evaluation.put("active_policy", active.getName());
+        evaluation.put("timestamp", snapshot.getTimestamp());
+        evaluation.put("stale", snapshot.isStale());
+        evaluation.put("current_year", snapshot.getCurrentYear());
+        evaluation.put("current_week", snapshot.getCurrentWeek());
+        evaluation.put("overall", overall.toMap());
+        evaluation.put("by_app", byApp);
+        evaluation.put("evaluation_ms", Math.round((System.nanoTime() - start) / 10_000.0) / 100.0);
+        return evaluation;
+    }
+
+    /**
+     * Count servers under the policy. Compact tables are classified once per
+     * distinct image of their dictionary.
+     */
+    private void count(List<ServerInfo> servers, String appName, CompliancePolicy policy,
+                       ComplianceSnapshot snapshot, Counts counts) {
+        if (servers == null) {
+            return;
+        }
+        int currentYear = snapshot.getCurrentYear();
+        int currentWeek = snapshot.getCurrentWeek();
+        
+        if (servers instanceof ServerTable table) {
+            ImageDictionary images = table.getImages();
+            ServerStatus[] byImage = new ServerStatus[images.size()];
+            for (int i = 0; i < table.size(); i++) {
+                int ref = table.imageRef(i);
+                ServerStatus status = byImage[ref];
+                if (status == null) {
+                    int year = images.getYear(ref);
+                    int week = images.getWeek(ref);
+                    status = policy.classify(appName,
+                            year != ImageDictionary.NONE ? year : null,
+                            week != ImageDictionary.NONE ? week : null,
+                            currentYear, currentWeek);
+                    byImage[ref] = status;
+                }
+                counts.add(status, table.getStatus(i));
+            }
+            return;
+        }
+        
+        for (ServerInfo server : servers) {
+            counts.add(policy.classify(appName, server.getImageYear(), server.getImageWeek(), currentYear, currentWeek),
+                    ServerStatus.fromReason(server.getReason()));
+        }
+    }
+
+    /**
+     * Server counts by status under the evaluated policy.
+     */
+    private static class Counts {
+        final int[] byStatus = new int[ServerStatus.values().length];
+        int newlyCompliant;
+        int newlyNonCompliant;
+
+        void add(ServerStatus status, ServerStatus previous) {
+            byStatus[status.ordinal()]++;
+            boolean compliant = status == ServerStatus.COMPLIANT;
+            if (compliant != (previous == ServerStatus.COMPLIANT)) {
+                if (compliant) {
+                    newlyCompliant++;
+                } else {
+                    newlyNonCompliant++;
+                }
+            }
+        }
+
+        void add(Counts other) {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] += other.byStatus[i];
+            }
+            newlyCompliant += other.newlyCompliant;
+            newlyNonCompliant += other.newlyNonCompliant;
+        }
+
+        Map<String, Object> toMap() {
+            int total = Arrays.stream(byStatus).sum();
+            int compliant = byStatus[ServerStatus.COMPLIANT.ordinal()];
+            Map<String, Integer> byReason = new LinkedHashMap<>();
+            for (ServerStatus status : ServerStatus.values()) {
+                if (status != ServerStatus.COMPLIANT) {
+                    byReason.put(status.name().toLowerCase(Locale.ROOT), byStatus[status.ordinal()]);
+                }
+            }
+            
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("total_servers", total);
+            map.put("compliant", compliant);
+            map.put("non_compliant", total - compliant);
+            map.put("compliance_percentage",
+                    total > 0 ? Math.round((double) compliant / total * 10000.0) / 100.0 : 0.0);
+            map.put("non_compliant_by_reason", byReason);
+            map.put("newly_compliant", newlyCompliant);
+            map.put("newly_non_compliant", newlyNonCompliant);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.model.AppConfig;
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodically refreshes the all-apps compliance snapshot in the background.
+ * The first refresh starts as soon as the application is up.
+ *
+ * In adaptive mode (the default) the first refresh is a full scan, and after
+ * that only the (app, region) inventories due under the {@link RefreshSchedule}
+ * are rescanned and merged into the snapshot: regions that keep changing are
+ * rescanned often, static ones rarely. Otherwise every app is rescanned each
+ * {@code interval}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ComplianceRefresher {
+
+    private final SnapshotService snapshotService;
+    private final ComplianceService complianceService;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Checked at run time rather than as a bean condition, which an AOT-processed
+     * build would fix at build time.
+     */
+    @Value("${compliance.refresh.enabled:true}")
+    private boolean enabled;
+
+    @Value("${compliance.refresh.interval:PT15M}")
+    private Duration interval;
+
+    @Value("${compliance.refresh.adaptive.enabled:true}")
+    private boolean adaptive;
+
+    @Value("${compliance.refresh.adaptive.min-interval:PT5M}")
+    private Duration minInterval;
+
+    @Value("${compliance.refresh.adaptive.max-interval:PT2H}")
+    private Duration maxInterval;
+
+    private RefreshSchedule schedule;
+    private Counter regionsScanned;
+    private Counter regionsChanged;
+
+    @PostConstruct
+    public void init() {
+        schedule = new RefreshSchedule(interval, minInterval, maxInterval);
+        regionsScanned = Counter.builder("compliance.refresh.regions_scanned")
+                .description("Region inventories rescanned by background refreshes")
+                .register(meterRegistry);
+        regionsChanged = Counter.builder("compliance.refresh.regions_changed")
+                .description("Rescanned region inventories that had changed since their previous scan")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${compliance.refresh.interval:PT15M}")
+    public void refresh() {
+        if (!enabled || adaptive) {
+            return;
+        }
+        log.info("Starting background compliance refresh");
+        long start = System.currentTimeMillis();
+        try {
+            snapshotService.refresh();
+            log.info("Background compliance refresh completed in {} ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Background compliance refresh failed", e);
+        }
+    }
+
+    /**
+     * Rescan the regions that are due, or everything while there is no snapshot yet.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${compliance.refresh.adaptive.tick:PT1M}")
+    public void refreshDueRegions() {
+        if (!enabled || !adaptive) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<String> regions = complianceService.getRegions();
+        try {
+            ComplianceSnapshot current = snapshotService.getCurrent();
+            if (current == null) {
+                log.info("Starting background compliance refresh");
+                ComplianceSnapshot scanned = snapshotService.refresh();
+                Map<String, List<String>> all = new HashMap<>();
+                scanned.getApps().keySet().forEach(appName -> all.put(appName, regions));
+                regionsScanned.increment(all.size() * regions.size());
+                schedule.record(scanned, all, regions, Instant.now());
+                log.info("Background compliance refresh completed in {} ms", System.currentTimeMillis() - start);
+                return;
+            }
+
+            Instant now = Instant.now();
+            if (schedule.rollWeek(current.getCurrentYear(), current.getCurrentWeek(), now)) {
+                log.info("ISO week rolled over to {}-W{}, rescanning every region",
+                        current.getCurrentYear(), current.getCurrentWeek());
+            }
+            if (!schedule.isDue(now)) {
+                return;
+            }
+            Map<String, AppConfig> configs = complianceService.getOwnedConfigs();
+            Map<String, List<String>> due = schedule.due(configs.keySet(), regions, now);
+            if (due.isEmpty() && configs.keySet().equals(current.getApps().keySet())) {
+                return;
+            }
+
+            ComplianceSnapshot refreshed = complianceService.checkRegionsCompliance(current, configs, due);
+            snapshotService.publish(refreshed);
+            int scanned = due.values().stream().mapToInt(List::size).sum();
+            int changed = schedule.record(refreshed, due, regions, Instant.now());
+            regionsScanned.increment(scanned);
+            regionsChanged.increment(changed);
+            log.info("Background compliance refresh rescanned {} of {} regions in {} ms, {} changed",
+                    scanned, schedule.size(), System.currentTimeMillis() - start, changed);
+        } catch (Exception e) {
+            log.error("Background compliance refresh failed", e);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.compliance.dashboard.service;
 
 import com.compliance.dashboard.client.IamAasClient;
+import com.compliance.dashboard.client.ImageCatalog;
 import com.compliance.dashboard.client.OcsApiClient;
+import com.compliance.dashboard.client.UpstreamScheduler;
+import com.compliance.dashboard.client.UpstreamTrace;
 import com.compliance.dashboard.model.*;
+import com.compliance.dashboard.shard.ShardMembership;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -10,13 +14,18 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.temporal.IsoFields;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Service for checking server compliance across regions.
- * Validates whether servers are running images built in the current ISO week.
+ * Servers are classified by the build week of their image under the active
+ * {@link CompliancePolicy}; by default only the current ISO week is compliant.
  */
 @Slf4j
 @Service
@@ -26,72 +35,483 @@ public class ComplianceService {
     private final VaultService vaultService;
     private final IamAasClient iamAasClient;
     private final OcsApiClient ocsApiClient;
+    private final ImageCatalog imageCatalog;
+    private final ShardMembership shardMembership;
+    private final AppBulkheads appBulkheads;
+    private final CompliancePolicyEngine policyEngine;
 
     private static final List<String> REGIONS = Arrays.asList("paris", "north");
     private static final Pattern WEEK_PATTERN = Pattern.compile("_(\\d{4})_w(\\d{2})", Pattern.CASE_INSENSITIVE);
 
     /**
-     * Check compliance for all applications.
+     * OCS regions every app is checked in.
+     */
+    public List<String> getRegions() {
+        return REGIONS;
+    }
+
+    /**
+     * Check compliance for all applications, or for this replica's shard of
+     * them in sharded mode, marked partial.
      *
-     * @param debug Enable debug logging
-     * @return Map of app name to compliance results
+     * @param debug Enable debug logging and attach stage timings to the snapshot and every app
+     * @return Snapshot of compliance results for every app
      */
-    public Map<String, Object> checkAllAppsCompliance(boolean debug) {
-        log.info("Checking compliance for all applications");
-        Map<String, AppConfig> configs = vaultService.getAllConfigs();
+    public ComplianceSnapshot checkAllAppsCompliance(boolean debug) {
+        return checkAppsCompliance(null, debug, null);
+    }
+
+    /**
+     * Check compliance for the listed applications, or for all of them (this
+     * replica's shard in sharded mode, marked partial). Listed apps are checked
+     * here whichever replica owns them. Listed apps without a config get an
+     * error result.
+     *
+     * @param appNames Apps to check, null for all
+     * @param debug Enable debug logging and attach stage timings to the snapshot and every app
+     * @param progress Receives apps and regions as they complete, null if not tracked
+     * @return Snapshot of compliance results for the checked apps
+     */
+    public ComplianceSnapshot checkAppsCompliance(Collection<String> appNames, boolean debug, ScanProgress progress) {
+        if (appNames == null) {
+            log.info("Checking compliance for all applications");
+        } else {
+            log.info("Checking compliance for applications: {}", appNames);
+        }
+        long start = System.nanoTime();
+        YearWeek currentWeek = currentIsoWeek();
+        ScanTrace scanTrace = debug ? new ScanTrace() : null;
+        Map<String, AppConfig> configs = vaultStage(scanTrace != null,
+                () -> appNames == null ? ownedConfigs(vaultService.getAllConfigs())
+                        : listedConfigs(vaultService.getAllConfigs(), appNames),
+                stage -> scanTrace.setVaultConfig(stage));
         Map<String, ComplianceResult> results = new HashMap<>();
+        if (appNames != null) {
+            for (String appName : appNames) {
+                if (!configs.containsKey(appName)) {
+                    results.put(appName, ComplianceResult.builder()
+                            .appName(appName)
+                            .error("App configuration not found: " + appName)
+                            .regions(new HashMap<>())
+                            .build());
+                }
+            }
+        }
+        if (progress != null) {
+            progress.start(configs.size(), REGIONS.size());
+        }
+        results.putAll(checkApps(configs, null, debug, progress));
+        
+        if (scanTrace != null) {
+            scanTrace.setTotalMs(millisSince(start));
+        }
         
+        return ComplianceSnapshot.builder()
+                .timestamp(LocalDateTime.now())
+                .currentYear(currentWeek.year)
+                .currentWeek(currentWeek.week)
+                .apps(results)
+                .partial(appNames == null ? partial() : null)
+                .shard(appNames == null ? getScanShard() : null)
+                .trace(scanTrace)
+                .build();
+    }
+
+    /**
+     * Check compliance for the listed applications while a user waits. Like
+     * {@link #checkAppsCompliance}, configs come from one Vault read and the
+     * apps share tokens and inventories, but as for a single-app check the apps
+     * run on their own threads in their bulkheads' interactive share, and
+     * upstream calls jump ahead of any running full scan. So the check neither
+     * waits behind a scan's queued apps nor gets rejected by the scan's checks.
+     *
+     * @param appNames Apps to check
+     * @param debug Enable debug logging and attach stage timings to the snapshot and every app
+     * @return Snapshot of compliance results for the listed apps
+     */
+    public ComplianceSnapshot checkListedAppsCompliance(Collection<String> appNames, boolean debug) {
+        return UpstreamScheduler.callWith(UpstreamScheduler.Priority.INTERACTIVE,
+                () -> checkAppsCompliance(appNames, debug, null));
+    }
+
+    /**
+     * Rescan some regions of this replica's apps and take every other region
+     * from the previous snapshot. Apps no longer configured are dropped. An app
+     * whose check fails is reported with its error and no regions, as in a
+     * full scan.
+     *
+     * @param previous Snapshot the regions that are not rescanned come from
+     * @param configs Configs of the apps to report, see {@link #getOwnedConfigs()}
+     * @param dueRegions Regions to rescan by app name
+     * @return Merged snapshot, classified against the same ISO week as the previous one
+     */
+    public ComplianceSnapshot checkRegionsCompliance(ComplianceSnapshot previous, Map<String, AppConfig> configs,
+                                                     Map<String, ? extends Collection<String>> dueRegions) {
+        Map<String, AppConfig> dueConfigs = new HashMap<>();
+        dueRegions.keySet().forEach(appName -> {
+            if (configs.containsKey(appName)) {
+                dueConfigs.put(appName, configs.get(appName));
+            }
+        });
+        log.info("Checking compliance for {} regions of {} applications",
+                dueRegions.values().stream().mapToInt(Collection::size).sum(), dueConfigs.size());
+        Map<String, ComplianceResult> scanned = checkApps(dueConfigs, dueRegions, false, null);
+        
+        Map<String, ComplianceResult> apps = new HashMap<>();
+        for (String appName : configs.keySet()) {
+            ComplianceResult fresh = scanned.get(appName);
+            ComplianceResult kept = previous.getApps().get(appName);
+            if (fresh == null) {
+                if (kept != null) {
+                    apps.put(appName, kept);
+                }
+            } else if (fresh.getError() != null || kept == null || kept.getError() != null
+                    || kept.getRegions() == null) {
+                apps.put(appName, fresh);
+            } else {
+                Map<String, RegionResult> regions = new HashMap<>(kept.getRegions());
+                regions.putAll(fresh.getRegions());
+                apps.put(appName, fresh.toBuilder().regions(regions).build());
+            }
+        }
+        
+        // Kept regions were classified against the previous snapshot's week; publishing
+        // reclassifies the whole snapshot if the week has rolled over since
+        return previous.toBuilder()
+                .timestamp(LocalDateTime.now())
+                .apps(apps)
+                .stale(false)
+                .partial(partial())
+                .shard(getScanShard())
+                .trace(null)
+                .build();
+    }
+
+    /**
+     * Configs of the apps this replica scans: all apps unless sharded.
+     */
+    public Map<String, AppConfig> getOwnedConfigs() {
+        return ownedConfigs(vaultService.getAllConfigs());
+    }
+
+    /**
+     * Replica whose apps all-apps scans cover, or null if they cover every app.
+     */
+    public String getScanShard() {
+        return shardMembership.getSelf();
+    }
+
+    /**
+     * Check the given apps concurrently, each in its own bulkhead. Checks for
+     * a waiting user (interactive priority) take the bulkheads' interactive
+     * share on their own threads; others queue for the scan pool.
+     *
+     * @param regionsByApp Regions to check by app name, null for all regions
+     * @param progress Receives apps and regions as they complete, null if not tracked
+     * @return Result of every app, with an error for those whose check failed
+     */
+    private Map<String, ComplianceResult> checkApps(Map<String, AppConfig> configs,
+                                                    Map<String, ? extends Collection<String>> regionsByApp,
+                                                    boolean debug, ScanProgress progress) {
+        UpstreamScheduler.Priority priority = UpstreamScheduler.currentPriority();
+        // Apps on the same OCS account share one inventory fetch per region
+        ScanInventory inventory = regionsByApp == null
+                ? new ScanInventory(configs, REGIONS)
+                : new ScanInventory(configs, regionsByApp);
+        
+        // Each app runs in its own bulkhead, so a slow app cannot hold up the others
+        Map<String, CompletableFuture<ComplianceResult>> checks = new HashMap<>();
+        Map<String, AppTrace> traces = new HashMap<>();
         for (Map.Entry<String, AppConfig> entry : configs.entrySet()) {
             String appName = entry.getKey();
             AppConfig appConfig = entry.getValue();
+            Collection<String> regions = regionsByApp == null ? REGIONS : regionsByApp.get(appName);
+            AppTrace trace = debug ? new AppTrace() : null;
+            traces.put(appName, trace);
+            Supplier<ComplianceResult> appCheck = () -> UpstreamScheduler.callWith(
+                    priority, () -> checkAppCompliance(appName, appConfig, regions, trace, inventory, progress));
+            CompletableFuture<ComplianceResult> check = priority == UpstreamScheduler.Priority.INTERACTIVE
+                    ? appBulkheads.submitInteractive(appName, appCheck)
+                    : appBulkheads.submit(appName, appCheck);
+            // Rejected, failed or abandoned checks give up the inventory reads they did not make
+            check.whenComplete((result, e) -> inventory.finished(appName));
+            if (progress != null) {
+                check.whenComplete((result, e) -> progress.appCompleted(appName));
+            }
+            checks.put(appName, check);
+        }
+        
+        Map<String, ComplianceResult> results = new HashMap<>();
+        for (Map.Entry<String, CompletableFuture<ComplianceResult>> entry : checks.entrySet()) {
+            String appName = entry.getKey();
             
             try {
-                ComplianceResult result = checkAppCompliance(appName, appConfig, debug);
-                results.put(appName, result);
+                results.put(appName, entry.getValue().join());
             } catch (Exception e) {
-                log.error("Error checking compliance for app: {}", appName, e);
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.error("Error checking compliance for app: {}", appName, cause);
+                // The trace keeps the stages that did run
                 results.put(appName, ComplianceResult.builder()
                         .appName(appName)
-                        .error(e.getMessage())
+                        .error(cause.getMessage())
                         .regions(new HashMap<>())
+                        .trace(traces.get(appName))
                         .build());
             }
         }
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("apps", results);
+        log.info("Fetched {} region inventories for {} apps, {} reads and {} tokens shared across apps",
+                inventory.getFetched(), configs.size(), inventory.getShared(), inventory.getSharedTokens());
+        return results;
+    }
+
+    /**
+     * Reclassify a snapshot against the current ISO week if it was classified
+     * against an earlier one. Servers, image IDs and image names are taken from
+     * the snapshot itself, so no upstream calls are made.
+     *
+     * @param snapshot Compliance snapshot
+     * @return The same snapshot if the week is unchanged, otherwise a reclassified copy
+     */
+    public ComplianceSnapshot reclassifyIfWeekChanged(ComplianceSnapshot snapshot) {
+        YearWeek now = currentIsoWeek();
+        if (snapshot.getCurrentYear() == now.year && snapshot.getCurrentWeek() == now.week) {
+            return snapshot;
+        }
+        log.info("ISO week changed from {}-W{} to {}-W{}, reclassifying snapshot in memory",
+                snapshot.getCurrentYear(), snapshot.getCurrentWeek(), now.year, now.week);
+        return reclassify(snapshot, now.year, now.week);
+    }
+
+    /**
+     * Rebuild a snapshot read from disk into the compact in-memory layout,
+     * classified against the current ISO week.
+     *
+     * @param snapshot Deserialized compliance snapshot
+     * @return Reclassified, compacted copy
+     */
+    public ComplianceSnapshot restore(ComplianceSnapshot snapshot) {
+        YearWeek now = currentIsoWeek();
+        if (snapshot.getCurrentYear() != now.year || snapshot.getCurrentWeek() != now.week) {
+            log.info("Restored snapshot was classified in {}-W{}, reclassifying for {}-W{}",
+                    snapshot.getCurrentYear(), snapshot.getCurrentWeek(), now.year, now.week);
+        }
+        return reclassify(snapshot, now.year, now.week);
+    }
+
+    /**
+     * Reclassify every server of a snapshot against the given ISO week.
+     */
+    public ComplianceSnapshot reclassify(ComplianceSnapshot snapshot, int currentYear, int currentWeek) {
+        Map<String, ComplianceResult> apps = new HashMap<>();
+        
+        for (Map.Entry<String, ComplianceResult> entry : snapshot.getApps().entrySet()) {
+            ComplianceResult result = entry.getValue();
+            if (result.getError() != null || result.getRegions() == null) {
+                apps.put(entry.getKey(), result);
+                continue;
+            }
+            
+            Map<String, RegionResult> regionResults = new HashMap<>();
+            for (Map.Entry<String, RegionResult> regionEntry : result.getRegions().entrySet()) {
+                RegionResult regionResult = regionEntry.getValue();
+                regionResults.put(regionEntry.getKey(), regionResult.getError() != null
+                        ? regionResult
+                        : reclassifyRegion(entry.getKey(), regionResult, currentYear, currentWeek));
+            }
+            
+            apps.put(entry.getKey(), result.toBuilder()
+                    .currentYear(currentYear)
+                    .currentWeek(currentWeek)
+                    .regions(regionResults)
+                    .build());
+        }
+        
+        return snapshot.toBuilder()
+                .currentYear(currentYear)
+                .currentWeek(currentWeek)
+                .apps(apps)
+                .build();
+    }
+
+    /**
+     * Aggregate compliance statistics across all apps and regions of a snapshot.
+     *
+     * @param snapshot Compliance snapshot
+     * @return Summary with overall and per-app statistics
+     */
+    public Map<String, Object> summarize(ComplianceSnapshot snapshot) {
+        int totalServers = 0;
+        int totalCompliant = 0;
+        int totalNonCompliant = 0;
+        List<Map<String, Object>> appsSummary = new ArrayList<>();
+        
+        for (Map.Entry<String, ComplianceResult> entry : snapshot.getApps().entrySet()) {
+            String appName = entry.getKey();
+            ComplianceResult appData = entry.getValue();
+            
+            int appTotal = 0;
+            int appCompliant = 0;
+            int appNonCompliant = 0;
+            
+            if (appData.getRegions() != null) {
+                for (RegionResult regionData : appData.getRegions().values()) {
+                    if (regionData.getError() == null) {
+                        appTotal += regionData.getTotalServers();
+                        appCompliant += regionData.getCompliant();
+                        appNonCompliant += regionData.getNonCompliant();
+                    }
+                }
+            }
+            
+            totalServers += appTotal;
+            totalCompliant += appCompliant;
+            totalNonCompliant += appNonCompliant;
+            
+            Map<String, Object> appSummary = new HashMap<>();
+            appSummary.put("app_name", appName);
+            appSummary.put("total_servers", appTotal);
+            appSummary.put("compliant", appCompliant);
+            appSummary.put("non_compliant", appNonCompliant);
+            appSummary.put("compliance_percentage", percentage(appCompliant, appTotal));
+            
+            appsSummary.add(appSummary);
+        }
         
-        return response;
+        Map<String, Object> overall = new HashMap<>();
+        overall.put("total_servers", totalServers);
+        overall.put("compliant", totalCompliant);
+        overall.put("non_compliant", totalNonCompliant);
+        overall.put("compliance_percentage", percentage(totalCompliant, totalServers));
+        
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("timestamp", snapshot.getTimestamp());
+        summary.put("stale", snapshot.isStale());
+        if (snapshot.getShard() != null) {
+            summary.put("partial", true);
+            summary.put("shard", snapshot.getShard());
+        }
+        summary.put("overall", overall);
+        summary.put("by_app", appsSummary);
+        return summary;
     }
 
     /**
      * Check compliance for a specific application.
      *
      * @param appName Application name
-     * @param debug Enable debug logging
+     * @param debug Enable debug logging and attach stage timings to the result
      * @return Compliance result
      */
     public ComplianceResult checkCompliance(String appName, boolean debug) {
         log.info("Checking compliance for app: {}", appName);
-        AppConfig appConfig = vaultService.getAppConfig(appName);
+        long start = System.nanoTime();
+        AppTrace trace = debug ? new AppTrace() : null;
+        AppConfig appConfig = vaultStage(debug, () -> vaultService.getAppConfig(appName),
+                stage -> trace.setVaultConfig(stage));
         if (appConfig == null) {
             throw new RuntimeException("App configuration not found: " + appName);
         }
         
-        return checkAppCompliance(appName, appConfig, debug);
+        // A user is waiting: upstream calls jump ahead of any running full scan
+        ComplianceResult result = appBulkheads.execute(appName, () -> UpstreamScheduler.callWith(
+                UpstreamScheduler.Priority.INTERACTIVE, () -> checkAppCompliance(appName, appConfig, REGIONS, trace, null, null)));
+        if (trace != null) {
+            trace.setTotalMs(millisSince(start));
+        }
+        return result;
     }
 
     /**
-     * Check compliance for an application across all regions.
+     * Check compliance for an application in the given regions.
+     *
+     * @param trace Receives stage timings in debug mode, null otherwise
+     * @param inventory Inventories shared within the current scan, null to fetch on its own
+     * @param progress Progress of the current scan, null if not tracked
      */
-    private ComplianceResult checkAppCompliance(String appName, AppConfig appConfig, boolean debug) {
+    private ComplianceResult checkAppCompliance(String appName, AppConfig appConfig, Collection<String> regions,
+                                                AppTrace trace, ScanInventory inventory, ScanProgress progress) {
+        long start = System.nanoTime();
         // Get current ISO week
         LocalDateTime now = LocalDateTime.now();
-        int currentYear = now.get(IsoFields.WEEK_BASED_YEAR);
-        int currentWeek = now.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+        YearWeek isoWeek = currentIsoWeek(now);
         
-        if (debug) {
+        Map<String, RegionResult> regionResults = new HashMap<>();
+        try {
+            scanRegions(appName, appConfig, regions, isoWeek, trace, inventory, (region, result) -> {
+                regionResults.put(region, result);
+                if (progress != null) {
+                    progress.regionCompleted(appName);
+                }
+            });
+        } finally {
+            if (trace != null) {
+                trace.setTotalMs(millisSince(start));
+            }
+        }
+        
+        return ComplianceResult.builder()
+                .appName(appName)
+                .timestamp(now)
+                .currentYear(isoWeek.year)
+                .currentWeek(isoWeek.week)
+                .regions(regionResults)
+                .trace(trace)
+                .build();
+    }
+
+    /**
+     * Scan all applications (this replica's shard in sharded mode), handing
+     * each region's result to the consumer as soon as it is classified instead
+     * of collecting a snapshot, so only one region is held in memory at a time.
+     * An app that fails before any region is scanned is reported once with a
+     * null region and an error result.
+     *
+     * @param consumer Receives every (app, region, result); exceptions it throws abort the scan
+     */
+    public void streamAllAppsCompliance(RegionResultConsumer consumer) {
+        log.info("Streaming compliance for all applications");
+        YearWeek currentWeek = currentIsoWeek();
+        Map<String, AppConfig> configs = ownedConfigs(vaultService.getAllConfigs());
+        ScanInventory inventory = new ScanInventory(configs, REGIONS);
+        
+        for (Map.Entry<String, AppConfig> entry : new TreeMap<>(configs).entrySet()) {
+            String appName = entry.getKey();
+            try {
+                scanRegions(appName, entry.getValue(), REGIONS, currentWeek, null, inventory,
+                        (region, result) -> consumer.accept(appName, region, result));
+            } catch (ConsumerException e) {
+                throw e.getCause();
+            } catch (Exception e) {
+                log.error("Error checking compliance for app: {}", appName, e);
+                consumer.accept(appName, null, errorRegionResult(e.getMessage()));
+            } finally {
+                inventory.finished(appName);
+            }
+        }
+    }
+
+    /**
+     * Receives region results from {@link #streamAllAppsCompliance}.
+     */
+    @FunctionalInterface
+    public interface RegionResultConsumer {
+        void accept(String appName, String region, RegionResult result);
+    }
+
+    /**
+     * Validate the app config, obtain a token and classify the given regions,
+     * handing each region's result to the consumer.
+     *
+     * @param trace Receives stage timings in debug mode, null otherwise
+     * @param inventory Inventories and tokens shared within the current scan, null to fetch on its own
+     */
+    private void scanRegions(String appName, AppConfig appConfig, Collection<String> regions, YearWeek isoWeek,
+                             AppTrace trace, ScanInventory inventory, BiConsumer<String, RegionResult> consumer) {
+        int currentYear = isoWeek.year;
+        int currentWeek = isoWeek.week;
+        
+        if (trace != null) {
             log.info("Current ISO week: {}-W{}", currentYear, currentWeek);
         }
         
@@ -100,82 +520,85 @@ public class ComplianceService {
         
         // Get OAuth token
         String scope = iamAasClient.buildScope(appConfig.getAccountId(), appConfig.getSgcpIamaasScopes());
-        String accessToken = iamAasClient.getAccessToken(
+        Supplier<String> requestToken = () -> iamAasClient.getAccessToken(
                 appConfig.getIamaasUrl(),
                 appConfig.getClientId(),
                 appConfig.getClientSecret(),
                 scope
         );
+        String accessToken = upstreamStage(trace != null,
+                inventory != null ? () -> inventory.token(appConfig, scope, requestToken) : requestToken,
+                (stage, token) -> trace.setIamaasToken(stage.build()));
         
         // Check compliance for each region
-        Map<String, RegionResult> regionResults = new HashMap<>();
-        
-        for (String region : REGIONS) {
+        for (String region : regions) {
+            RegionTrace regionTrace = trace != null ? new RegionTrace() : null;
+            long start = System.nanoTime();
+            RegionResult regionResult;
             try {
-                RegionResult regionResult = checkRegionCompliance(
-                        region, accessToken, currentYear, currentWeek, debug
+                regionResult = checkRegionCompliance(
+                        appName, appConfig, region, accessToken, currentYear, currentWeek, regionTrace, inventory
                 );
-                regionResults.put(region, regionResult);
             } catch (Exception e) {
                 log.error("Error checking compliance for region: {}", region, e);
-                regionResults.put(region, RegionResult.builder()
-                        .error(e.getMessage())
-                        .totalServers(0)
-                        .compliant(0)
-                        .nonCompliant(0)
-                        .compliancePercentage(0.0)
-                        .goodServers(new ArrayList<>())
-                        .badServers(new ArrayList<>())
-                        .build());
+                regionResult = errorRegionResult(e.getMessage());
+            }
+            if (regionTrace != null) {
+                regionTrace.setTotalMs(millisSince(start));
+                trace.getRegions().put(region, regionTrace);
+            }
+            try {
+                consumer.accept(region, regionResult);
+            } catch (RuntimeException e) {
+                throw new ConsumerException(e);
             }
         }
-        
-        return ComplianceResult.builder()
-                .appName(appName)
-                .timestamp(now)
-                .currentYear(currentYear)
-                .currentWeek(currentWeek)
-                .regions(regionResults)
+    }
+
+    /**
+     * Result for a region (or app) that could not be checked.
+     */
+    private RegionResult errorRegionResult(String error) {
+        return RegionResult.builder()
+                .error(error)
+                .totalServers(0)
+                .compliant(0)
+                .nonCompliant(0)
+                .compliancePercentage(0.0)
+                .goodServers(new ArrayList<>())
+                .badServers(new ArrayList<>())
                 .build();
     }
 
     /**
      * Check compliance for a specific region.
+     *
+     * @param trace Receives stage timings in debug mode, null otherwise
+     * @param scanInventory Inventories shared within the current scan, null to fetch on its own
      */
-    private RegionResult checkRegionCompliance(String region, String accessToken, 
-                                               int currentYear, int currentWeek, boolean debug) {
+    private RegionResult checkRegionCompliance(String appName, AppConfig appConfig, String region, String accessToken,
+                                               int currentYear, int currentWeek, RegionTrace trace,
+                                               ScanInventory scanInventory) {
         log.info("Checking compliance for region: {}", region);
         
-        // Fetch servers
-        List<Map<String, Object>> servers = ocsApiClient.fetchServers(region, accessToken);
-        
-        // Image cache for this region
-        Map<String, String> imageCache = new ConcurrentHashMap<>();
-        
-        // Collect server-image pairs
-        List<ServerImagePair> serverImagePairs = new ArrayList<>();
-        for (Map<String, Object> server : servers) {
-            String serverName = (String) server.get("name");
-            String imageId = extractImageId(server);
-            serverImagePairs.add(new ServerImagePair(serverName, imageId));
-        }
-        
-        // Fetch image names (with caching)
-        for (ServerImagePair pair : serverImagePairs) {
-            if (pair.imageId != null && !imageCache.containsKey(pair.imageId)) {
-                String imageName = ocsApiClient.fetchImageName(region, pair.imageId, accessToken);
-                imageCache.put(pair.imageId, imageName);
-            }
+        ScanInventory.RegionInventory inventory = scanInventory != null
+                ? scanInventory.get(appName, appConfig.getAccountId(), region,
+                        () -> fetchInventory(appName, region, accessToken, trace))
+                : fetchInventory(appName, region, accessToken, trace);
+        if (trace != null && !appName.equals(inventory.fetchedBy)) {
+            trace.setInventoryFetchedBy(inventory.fetchedBy);
         }
         
         // Classify servers
+        long classifyStart = System.nanoTime();
         List<ServerInfo> goodServers = new ArrayList<>();
         List<ServerInfo> badServers = new ArrayList<>();
         
-        for (ServerImagePair pair : serverImagePairs) {
-            String imageName = pair.imageId != null ? imageCache.get(pair.imageId) : null;
+        for (int i = 0; i < inventory.serverNames.size(); i++) {
+            String imageId = inventory.imageIds.get(i);
+            String imageName = imageId != null ? inventory.imageNames.get(imageId) : null;
             ServerInfo serverInfo = classifyServer(
-                    pair.serverName, pair.imageId, imageName, currentYear, currentWeek
+                    appName, inventory.serverNames.get(i), imageId, imageName, currentYear, currentWeek
             );
             
             if (serverInfo.getReason() == null) {
@@ -185,25 +608,173 @@ public class ComplianceService {
             }
         }
         
-        int totalServers = serverImagePairs.size();
-        double compliancePercentage = totalServers > 0 
-                ? Math.round((double) goodServers.size() / totalServers * 10000.0) / 100.0 
-                : 0.0;
+        RegionResult result = buildRegionResult(goodServers, badServers);
+        if (trace != null) {
+            trace.setClassification(StageTrace.builder()
+                    .ms(millisSince(classifyStart))
+                    .items(inventory.serverNames.size())
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Fetch a region's servers and resolve their image names from the image catalog or OCS.
+     *
+     * @param trace Receives stage timings in debug mode, null otherwise
+     */
+    private ScanInventory.RegionInventory fetchInventory(String appName, String region, String accessToken,
+                                                         RegionTrace trace) {
+        // Fetch servers
+        List<Map<String, Object>> servers = upstreamStage(trace != null,
+                () -> ocsApiClient.fetchServers(region, accessToken),
+                (stage, fetched) -> trace.setServersDetail(stage
+                        .items(fetched != null ? fetched.size() : null)
+                        .build()));
+        
+        List<String> serverNames = new ArrayList<>(servers.size());
+        List<String> imageIds = new ArrayList<>(servers.size());
+        for (Map<String, Object> server : servers) {
+            serverNames.add((String) server.get("name"));
+            imageIds.add(extractImageId(server));
+        }
+        
+        // Image names resolved during this scan (null for failed lookups)
+        Map<String, String> imageNames = new HashMap<>();
+        
+        // Fetch image names (catalogued on disk across scans and restarts)
+        int[] cacheHits = new int[1];
+        int[] fetches = new int[1];
+        upstreamStage(trace != null, () -> {
+            for (String imageId : imageIds) {
+                if (imageId != null && !imageNames.containsKey(imageId)) {
+                    String imageName = imageCatalog.get(region, imageId);
+                    if (imageName == null) {
+                        fetches[0]++;
+                        imageName = ocsApiClient.fetchImageName(region, imageId, accessToken);
+                        imageCatalog.put(region, imageId, imageName);
+                    } else {
+                        cacheHits[0]++;
+                    }
+                    imageNames.put(imageId, imageName);
+                }
+            }
+            return null;
+        }, (stage, ignored) -> trace.setImageResolution(stage
+                .items(imageNames.size())
+                .cacheHits(cacheHits[0])
+                .fetches(fetches[0])
+                .failed((int) imageNames.values().stream().filter(Objects::isNull).count())
+                .build()));
+        
+        return new ScanInventory.RegionInventory(appName, serverNames, imageIds, imageNames);
+    }
+
+    /**
+     * Run a stage of upstream calls. When traced, its time and the requests,
+     * retries, hedges and response bytes it caused are handed to the recorder,
+     * together with the stage's result (null if it failed).
+     */
+    private <T> T upstreamStage(boolean traced, Supplier<T> stage,
+                                BiConsumer<StageTrace.StageTraceBuilder, T> recorder) {
+        if (!traced) {
+            return stage.get();
+        }
+        UpstreamTrace upstream = new UpstreamTrace();
+        long start = System.nanoTime();
+        T result = null;
+        String error = null;
+        try {
+            result = UpstreamTrace.recordInto(upstream, stage);
+            return result;
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            throw e;
+        } finally {
+            recorder.accept(StageTrace.builder()
+                    .ms(millisSince(start))
+                    .calls(upstream.getCalls())
+                    .retries(upstream.getRetries())
+                    .hedges(upstream.getHedges())
+                    .bytes(upstream.getBytes())
+                    .error(error), result);
+        }
+    }
+
+    /**
+     * Fetch app configs from Vault, timing the fetch when traced.
+     */
+    private <T> T vaultStage(boolean traced, Supplier<T> fetch, Consumer<StageTrace> recorder) {
+        if (!traced) {
+            return fetch.get();
+        }
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            return fetch.get();
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            throw e;
+        } finally {
+            recorder.accept(StageTrace.builder().ms(millisSince(start)).error(error).build());
+        }
+    }
+
+    /**
+     * Reclassify the servers of a region result against a new ISO week.
+     * Placeholder "N/A" image IDs and names classify exactly as the missing values they stand for.
+     */
+    private RegionResult reclassifyRegion(String appName, RegionResult regionResult, int currentYear, int currentWeek) {
+        List<ServerInfo> goodServers = new ArrayList<>();
+        List<ServerInfo> badServers = new ArrayList<>();
+        
+        for (List<ServerInfo> servers : Arrays.asList(regionResult.getGoodServers(), regionResult.getBadServers())) {
+            if (servers == null) {
+                continue;
+            }
+            for (ServerInfo server : servers) {
+                ServerInfo serverInfo = classifyServer(
+                        appName, server.getName(), server.getImageId(), server.getImageName(), currentYear, currentWeek
+                );
+                
+                if (serverInfo.getReason() == null) {
+                    goodServers.add(serverInfo);
+                } else {
+                    badServers.add(serverInfo);
+                }
+            }
+        }
+        
+        return buildRegionResult(goodServers, badServers);
+    }
+
+    /**
+     * Build a region result from classified servers, packed into compact
+     * server tables that share one image dictionary.
+     */
+    private RegionResult buildRegionResult(List<ServerInfo> goodServers, List<ServerInfo> badServers) {
+        int totalServers = goodServers.size() + badServers.size();
+        double compliancePercentage = percentage(goodServers.size(), totalServers);
+        
+        ImageDictionary images = new ImageDictionary();
+        ServerTable good = ServerTable.of(goodServers, images);
+        ServerTable bad = ServerTable.of(badServers, images);
+        images.freeze();
         
         return RegionResult.builder()
                 .totalServers(totalServers)
                 .compliant(goodServers.size())
                 .nonCompliant(badServers.size())
                 .compliancePercentage(compliancePercentage)
-                .goodServers(goodServers)
-                .badServers(badServers)
+                .goodServers(good)
+                .badServers(bad)
                 .build();
     }
 
     /**
-     * Classify a server as compliant or non-compliant.
+     * Classify a server as compliant or non-compliant under the active policy.
      */
-    private ServerInfo classifyServer(String serverName, String imageId, String imageName,
+    private ServerInfo classifyServer(String appName, String serverName, String imageId, String imageName,
                                      int currentYear, int currentWeek) {
         ServerInfo.ServerInfoBuilder builder = ServerInfo.builder()
                 .name(serverName)
@@ -212,28 +783,15 @@ public class ComplianceService {
         
         // Extract year and week from image name
         YearWeek yearWeek = extractYearWeek(imageName);
-        
-        if (yearWeek == null) {
-            builder.reason("No week info or unparsable");
-            return builder.build();
+        if (yearWeek != null) {
+            builder.imageYear(yearWeek.year).imageWeek(yearWeek.week);
         }
         
-        builder.imageYear(yearWeek.year).imageWeek(yearWeek.week);
-        
-        // Check compliance
-        if (yearWeek.year == currentYear && yearWeek.week == currentWeek) {
-            // Compliant - current week
-            return builder.build();
-        } else if (yearWeek.year < currentYear || 
-                  (yearWeek.year == currentYear && yearWeek.week < currentWeek)) {
-            // Non-compliant - older than current week
-            builder.reason("Older than current week");
-            return builder.build();
-        } else {
-            // Non-compliant - future week/year
-            builder.reason("Future week/year");
-            return builder.build();
-        }
+        ServerStatus status = policyEngine.getActive().classify(appName,
+                yearWeek != null ? yearWeek.year : null,
+                yearWeek != null ? yearWeek.week : null,
+                currentYear, currentWeek);
+        return builder.reason(status.getReason()).build();
     }
 
     /**
@@ -270,6 +828,63 @@ public class ComplianceService {
         return null;
     }
 
+    /**
+     * Current ISO week-based year and week.
+     */
+    private YearWeek currentIsoWeek() {
+        return currentIsoWeek(LocalDateTime.now());
+    }
+
+    private YearWeek currentIsoWeek(LocalDateTime now) {
+        return new YearWeek(now.get(IsoFields.WEEK_BASED_YEAR), now.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
+
+    /**
+     * Milliseconds elapsed since a {@link System#nanoTime()} reading, rounded to two decimals.
+     */
+    private static double millisSince(long start) {
+        return Math.round((System.nanoTime() - start) / 10_000.0) / 100.0;
+    }
+
+    /**
+     * Partial marker of all-apps snapshots: true when sharded, otherwise null.
+     */
+    private Boolean partial() {
+        return shardMembership.isEnabled() ? Boolean.TRUE : null;
+    }
+
+    /**
+     * Configs of the apps this replica scans: all of them unless sharded.
+     */
+    private Map<String, AppConfig> ownedConfigs(Map<String, AppConfig> configs) {
+        Map<String, AppConfig> owned = shardMembership.owned(configs);
+        if (owned.size() < configs.size()) {
+            log.info("Scanning {} of {} apps owned by this replica", owned.size(), configs.size());
+        }
+        return owned;
+    }
+
+    /**
+     * Configs of the listed apps that exist.
+     */
+    private Map<String, AppConfig> listedConfigs(Map<String, AppConfig> configs, Collection<String> appNames) {
+        Map<String, AppConfig> listed = new HashMap<>();
+        for (String appName : appNames) {
+            AppConfig config = configs.get(appName);
+            if (config != null) {
+                listed.put(appName, config);
+            }
+        }
+        return listed;
+    }
+
+    /**
+     * Percentage rounded to two decimals, 0 when there is nothing to count.
+     */
+    private double percentage(int part, int total) {
+        return total > 0 ? Math.round((double) part / total * 10000.0) / 100.0 : 0.0;
+    }
+
     /**
      * Validate app configuration has all required fields.
      */
@@ -288,15 +903,16 @@ public class ComplianceService {
     }
 
     /**
-     * Helper class for server-image pairs.
+     * Carries a failure of a region consumer past the per-app error handling.
      */
-    private static class ServerImagePair {
-        final String serverName;
-        final String imageId;
+    private static class ConsumerException extends RuntimeException {
+        ConsumerException(RuntimeException cause) {
+            super(cause);
+        }
         
-        ServerImagePair(String serverName, String imageId) {
-            this.serverName = serverName;
-            this.imageId = imageId;
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
         }
     }
 
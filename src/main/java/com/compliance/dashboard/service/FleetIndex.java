@@ -0,0 +1,391 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.model.ComplianceResult;
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import com.compliance.dashboard.model.ImageDictionary;
+import com.compliance.dashboard.model.RegionResult;
+import com.compliance.dashboard.model.ServerInfo;
+import com.compliance.dashboard.model.ServerStatus;
+import com.compliance.dashboard.model.ServerTable;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Secondary indexes over every server of a snapshot, across all apps and regions:
+ * image ID and image name to servers, image age in weeks to servers, and a
+ * case-insensitive name order for prefix lookups. Built once per published
+ * snapshot and immutable afterwards, so queries never touch upstream.
+ *
+ * Servers are referenced by position in the snapshot's {@link ServerTable}s
+ * rather than as objects, so the index adds only a few ints per server.
+ */
+public class FleetIndex {
+
+    private static final int NO_AGE = Integer.MIN_VALUE;
+
+    private final Group[] groups;
+    private final int[] groupOf;
+    private final int[] rowOf;
+    private final int[] ageWeeks;
+    private final Map<String, int[]> byImageId;
+    private final Map<String, int[]> byImageName;
+    private final TreeMap<Integer, int[]> byAgeWeeks;
+    private final int[] nameOrder;
+
+    private FleetIndex(List<Group> groups) {
+        this.groups = groups.toArray(new Group[0]);
+        int size = groups.stream().mapToInt(group -> group.table.size()).sum();
+        this.groupOf = new int[size];
+        this.rowOf = new int[size];
+        this.ageWeeks = new int[size];
+
+        Map<String, List<Integer>> imageIds = new HashMap<>();
+        Map<String, List<Integer>> imageNames = new HashMap<>();
+        Map<Integer, List<Integer>> ages = new HashMap<>();
+        String[] nameKeys = new String[size];
+        int i = 0;
+        for (int g = 0; g < this.groups.length; g++) {
+            Group group = this.groups[g];
+            ImageDictionary images = group.table.getImages();
+            for (int row = 0; row < group.table.size(); row++, i++) {
+                int ref = group.table.imageRef(row);
+                groupOf[i] = g;
+                rowOf[i] = row;
+                ageWeeks[i] = group.imageAges[ref];
+                imageIds.computeIfAbsent(images.getId(ref), k -> new ArrayList<>()).add(i);
+                imageNames.computeIfAbsent(images.getName(ref), k -> new ArrayList<>()).add(i);
+                if (ageWeeks[i] != NO_AGE) {
+                    ages.computeIfAbsent(ageWeeks[i], k -> new ArrayList<>()).add(i);
+                }
+                nameKeys[i] = nameKey(group.table.getName(row));
+            }
+        }
+        this.byImageId = toArrays(imageIds);
+        this.byImageName = toArrays(imageNames);
+        this.byAgeWeeks = new TreeMap<>(toArrays(ages));
+
+        // Prefix matches form a contiguous range of the name-sorted order
+        Integer[] order = new Integer[size];
+        for (int j = 0; j < size; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, Comparator.comparing(j -> nameKeys[j]));
+        this.nameOrder = new int[size];
+        for (int j = 0; j < size; j++) {
+            nameOrder[j] = order[j];
+        }
+    }
+
+    /**
+     * Index every server of a snapshot. Regions with errors contribute no servers.
+     */
+    public static FleetIndex build(ComplianceSnapshot snapshot) {
+        List<Group> groups = new ArrayList<>();
+        LocalDate currentWeekStart = weekStart(snapshot.getCurrentYear(), snapshot.getCurrentWeek());
+        Map<ImageDictionary, int[]> imageAges = new IdentityHashMap<>();
+
+        for (Map.Entry<String, ComplianceResult> appEntry : snapshot.getApps().entrySet()) {
+            Map<String, RegionResult> regions = appEntry.getValue().getRegions();
+            if (regions == null) {
+                continue;
+            }
+            for (Map.Entry<String, RegionResult> regionEntry : regions.entrySet()) {
+                RegionResult regionResult = regionEntry.getValue();
+                if (regionResult.getError() != null) {
+                    continue;
+                }
+                for (List<ServerInfo> servers : Arrays.asList(regionResult.getGoodServers(), regionResult.getBadServers())) {
+                    if (servers == null || servers.isEmpty()) {
+                        continue;
+                    }
+                    ServerTable table = servers instanceof ServerTable
+                            ? (ServerTable) servers
+                            : ServerTable.of(servers, new ImageDictionary());
+                    int[] ages = imageAges.computeIfAbsent(table.getImages(), images -> ages(images, currentWeekStart));
+                    groups.add(new Group(appEntry.getKey(), regionEntry.getKey(), table, ages));
+                }
+            }
+        }
+        return new FleetIndex(groups);
+    }
+
+    public int size() {
+        return groupOf.length;
+    }
+
+    /**
+     * Find servers matching every given criterion. The most selective index
+     * supplies the candidates; remaining criteria are checked per candidate.
+     *
+     * @param query Criteria; null fields are ignored
+     * @param limit Maximum number of entries to return
+     */
+    public QueryResult query(Query query, int limit) {
+        int[] candidates = null;
+        if (query.getImage() != null) {
+            candidates = union(byImageId.get(query.getImage()), byImageName.get(query.getImage()));
+        }
+        if (query.getMinAgeWeeks() != null || query.getMaxAgeWeeks() != null) {
+            candidates = smaller(candidates, ageRange(query.getMinAgeWeeks(), query.getMaxAgeWeeks()));
+        }
+        if (query.getNamePrefix() != null) {
+            candidates = smaller(candidates, prefixRange(query.getNamePrefix()));
+        }
+
+        IntPredicate matches = i -> matches(i, query);
+        List<Entry> results = new ArrayList<>();
+        int[] totalByGroup = new int[groups.length];
+        int total = 0;
+        if (candidates == null) {
+            for (int i = 0; i < groupOf.length; i++) {
+                if (matches.test(i)) {
+                    totalByGroup[groupOf[i]]++;
+                    if (total++ < limit) {
+                        results.add(entry(i));
+                    }
+                }
+            }
+        } else {
+            for (int i : candidates) {
+                if (matches.test(i)) {
+                    totalByGroup[groupOf[i]]++;
+                    if (total++ < limit) {
+                        results.add(entry(i));
+                    }
+                }
+            }
+        }
+        Map<String, Integer> totalByApp = new TreeMap<>();
+        for (int g = 0; g < groups.length; g++) {
+            if (totalByGroup[g] > 0) {
+                totalByApp.merge(groups[g].app, totalByGroup[g], Integer::sum);
+            }
+        }
+        return new QueryResult(results, total, totalByApp);
+    }
+
+    private Entry entry(int i) {
+        Group group = groups[groupOf[i]];
+        return new Entry(group.app, group.region, group.table.get(rowOf[i]),
+                ageWeeks[i] != NO_AGE ? ageWeeks[i] : null);
+    }
+
+    private boolean matches(int i, Query query) {
+        Group group = groups[groupOf[i]];
+        int row = rowOf[i];
+        if (query.getApp() != null && !query.getApp().equals(group.app)) {
+            return false;
+        }
+        if (query.getRegion() != null && !query.getRegion().equals(group.region)) {
+            return false;
+        }
+        if (query.getCompliant() != null
+                && query.getCompliant() != (group.table.getStatus(row) == ServerStatus.COMPLIANT)) {
+            return false;
+        }
+        if (query.getImage() != null) {
+            int ref = group.table.imageRef(row);
+            ImageDictionary images = group.table.getImages();
+            if (!query.getImage().equals(images.getId(ref)) && !query.getImage().equals(images.getName(ref))) {
+                return false;
+            }
+        }
+        if (query.getMinAgeWeeks() != null && (ageWeeks[i] == NO_AGE || ageWeeks[i] < query.getMinAgeWeeks())) {
+            return false;
+        }
+        if (query.getMaxAgeWeeks() != null && (ageWeeks[i] == NO_AGE || ageWeeks[i] > query.getMaxAgeWeeks())) {
+            return false;
+        }
+        return query.getNamePrefix() == null
+                || nameKey(group.table.getName(row)).startsWith(query.getNamePrefix().toLowerCase(Locale.ROOT));
+    }
+
+    private int[] ageRange(Integer minAge, Integer maxAge) {
+        Map<Integer, int[]> buckets;
+        if (minAge != null && maxAge != null) {
+            buckets = minAge <= maxAge ? byAgeWeeks.subMap(minAge, true, maxAge, true) : Map.of();
+        } else if (minAge != null) {
+            buckets = byAgeWeeks.tailMap(minAge, true);
+        } else {
+            buckets = byAgeWeeks.headMap(maxAge, true);
+        }
+        return buckets.values().stream().flatMapToInt(Arrays::stream).toArray();
+    }
+
+    /**
+     * Binary search the name order for the block of names starting with the prefix.
+     */
+    private int[] prefixRange(String prefix) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int from = firstIndex(0, name -> name.compareTo(key) >= 0);
+        int to = firstIndex(from, name -> !name.startsWith(key));
+        return Arrays.copyOfRange(nameOrder, from, to);
+    }
+
+    /**
+     * First position in the name order, at or after {@code from}, whose name
+     * satisfies a predicate that is monotonic over that range.
+     */
+    private int firstIndex(int from, Predicate<String> predicate) {
+        int low = from;
+        int high = nameOrder.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (predicate.test(nameKeyAt(mid))) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private String nameKeyAt(int position) {
+        int i = nameOrder[position];
+        return nameKey(groups[groupOf[i]].table.getName(rowOf[i]));
+    }
+
+    private static String nameKey(String name) {
+        return name != null ? name.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Age in weeks of every image of a dictionary, {@link #NO_AGE} where unknown.
+     */
+    private static int[] ages(ImageDictionary images, LocalDate currentWeekStart) {
+        int[] ages = new int[images.size()];
+        for (int ref = 0; ref < ages.length; ref++) {
+            Integer age = ageWeeks(images.getYear(ref), images.getWeek(ref), currentWeekStart);
+            ages[ref] = age != null ? age : NO_AGE;
+        }
+        return ages;
+    }
+
+    /**
+     * Whole weeks between the image's build week and the current week; negative for future images.
+     */
+    private static Integer ageWeeks(int imageYear, int imageWeek, LocalDate currentWeekStart) {
+        if (currentWeekStart == null || imageYear == ImageDictionary.NONE || imageWeek == ImageDictionary.NONE) {
+            return null;
+        }
+        LocalDate imageWeekStart = weekStart(imageYear, imageWeek);
+        return imageWeekStart != null ? (int) ChronoUnit.WEEKS.between(imageWeekStart, currentWeekStart) : null;
+    }
+
+    private static LocalDate weekStart(int year, int week) {
+        try {
+            LocalDate date = LocalDate.of(year, 1, 4).with(IsoFields.WEEK_OF_WEEK_BASED_YEAR, week);
+            return date.get(IsoFields.WEEK_BASED_YEAR) == year ? date.with(DayOfWeek.MONDAY) : null;
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static <K> Map<K, int[]> toArrays(Map<K, List<Integer>> lists) {
+        Map<K, int[]> arrays = new HashMap<>();
+        lists.forEach((key, list) -> arrays.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+        return arrays;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a == null) {
+            return b != null ? b : new int[0];
+        }
+        if (b == null || a == b) {
+            return a;
+        }
+        return IntStream.concat(Arrays.stream(a), Arrays.stream(b)).distinct().toArray();
+    }
+
+    private static int[] smaller(int[] current, int[] candidate) {
+        return current == null || candidate.length < current.length ? candidate : current;
+    }
+
+    /**
+     * Query criteria; every non-null field must match.
+     */
+    @Getter
+    @Builder
+    public static class Query {
+        private final String app;
+        private final String region;
+        private final String image;
+        private final Integer minAgeWeeks;
+        private final Integer maxAgeWeeks;
+        private final String namePrefix;
+        private final Boolean compliant;
+    }
+
+    /**
+     * Matching entries (up to the limit) and the total match count, overall and by app.
+     */
+    @Getter
+    public static class QueryResult {
+        private final List<Entry> entries;
+        private final int total;
+        private final Map<String, Integer> totalByApp;
+
+        QueryResult(List<Entry> entries, int total, Map<String, Integer> totalByApp) {
+            this.entries = entries;
+            this.total = total;
+            this.totalByApp = totalByApp;
+        }
+    }
+
+    /**
+     * One matching server, materialized for a query result.
+     */
+    @Getter
+    public static class Entry {
+        private final String app;
+        private final String region;
+        private final ServerInfo server;
+        private final Integer ageWeeks;
+
+        Entry(String app, String region, ServerInfo server, Integer ageWeeks) {
+            this.app = app;
+            this.region = region;
+            this.server = server;
+            this.ageWeeks = ageWeeks;
+        }
+
+        public boolean isCompliant() {
+            return server.getReason() == null;
+        }
+    }
+
+    /**
+     * Servers of one (app, region) table, with the age of each image in the table's dictionary.
+     */
+    private static class Group {
+        final String app;
+        final String region;
+        final ServerTable table;
+        final int[] imageAges;
+
+        Group(String app, String region, ServerTable table, int[] imageAges) {
+            this.app = app;
+            this.region = region;
+            this.table = table;
+            this.imageAges = imageAges;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A compliance snapshot together with its pre-serialized responses
+ * (the full all-apps payload and the aggregated summary) and its fleet index.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PublishedSnapshot {
+
+    private final ComplianceSnapshot snapshot;
+    private final SerializedResponse response;
+    private final SerializedResponse summary;
+    private final FleetIndex fleetIndex;
+}
@@ -0,0 +1,232 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.model.ComplianceResult;
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import com.compliance.dashboard.model.RegionResult;
+import com.compliance.dashboard.model.ServerInfo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * When each (app, region) inventory is next due for a rescan.
+ *
+ * Every scanned region is fingerprinted by its server count, its distinct
+ * image IDs and an order-independent hash of its servers' names and image
+ * IDs. A region whose fingerprint changed since its last scan is rescanned
+ * twice as often; one that stayed the same, 1.5 times less often, within
+ * {@code [minInterval, maxInterval]}. Regions seen for the first time start
+ * at the base interval, and regions that failed are retried after
+ * {@code minInterval}. When the ISO week rolls over, images get rebuilt, so
+ * every region is due at once and restarts at {@code minInterval}.
+ */
+class RefreshSchedule {
+
+    private static final double BACKOFF = 1.5;
+
+    private final Duration baseInterval;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+
+    /** Entries by app name, then region. */
+    private final Map<String, Map<String, Entry>> entries = new HashMap<>();
+    private Instant appsCheckedAt = Instant.MIN;
+    private int year;
+    private int week;
+
+    RefreshSchedule(Duration baseInterval, Duration minInterval, Duration maxInterval) {
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval.compareTo(minInterval) < 0 ? minInterval : maxInterval;
+        this.baseInterval = clamp(baseInterval);
+    }
+
+    /**
+     * Whether any region is due, or the app list should be checked for new apps
+     * (at least every {@code minInterval}).
+     */
+    synchronized boolean isDue(Instant now) {
+        if (!appsCheckedAt.plus(minInterval).isAfter(now)) {
+            return true;
+        }
+        for (Map<String, Entry> regions : entries.values()) {
+            for (Entry entry : regions.values()) {
+                if (!entry.nextDue.isAfter(now)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Regions due for a rescan among the given apps. Apps that are no longer
+     * listed are forgotten; regions never scanned are due.
+     *
+     * @return Due regions by app name
+     */
+    synchronized Map<String, List<String>> due(Collection<String> appNames, List<String> regions, Instant now) {
+        appsCheckedAt = now;
+        entries.keySet().retainAll(new HashSet<>(appNames));
+        Map<String, List<String>> due = new HashMap<>();
+        for (String appName : appNames) {
+            Map<String, Entry> appEntries = entries.getOrDefault(appName, Map.of());
+            for (String region : regions) {
+                Entry entry = appEntries.get(region);
+                if (entry == null || !entry.nextDue.isAfter(now)) {
+                    due.computeIfAbsent(appName, k -> new ArrayList<>()).add(region);
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Record the results of a scan and schedule the scanned regions again.
+     *
+     * @param scanned Regions that were scanned by app name
+     * @param regions Every region apps are checked in
+     * @return Scanned regions whose inventory changed since their previous scan
+     */
+    synchronized int record(ComplianceSnapshot snapshot, Map<String, ? extends Collection<String>> scanned,
+                            List<String> regions, Instant now) {
+        int changed = 0;
+        for (Map.Entry<String, ? extends Collection<String>> app : scanned.entrySet()) {
+            ComplianceResult result = snapshot.getApps().get(app.getKey());
+            if (result == null) {
+                entries.remove(app.getKey());
+                continue;
+            }
+            Map<String, Entry> appEntries = entries.computeIfAbsent(app.getKey(), k -> new HashMap<>());
+            if (result.getError() != null || result.getRegions() == null) {
+                // The app lost all its regions: retry every one of them soon
+                for (String region : regions) {
+                    appEntries.computeIfAbsent(region, k -> new Entry(baseInterval, null)).nextDue =
+                            now.plus(minInterval);
+                }
+                continue;
+            }
+            for (String region : app.getValue()) {
+                RegionResult regionResult = result.getRegions().get(region);
+                Entry entry = appEntries.get(region);
+                if (regionResult == null || regionResult.getError() != null) {
+                    if (entry == null) {
+                        entry = new Entry(baseInterval, null);
+                        appEntries.put(region, entry);
+                    }
+                    entry.nextDue = now.plus(minInterval);
+                    continue;
+                }
+                Fingerprint fingerprint = Fingerprint.of(regionResult);
+                if (entry == null) {
+                    entry = new Entry(baseInterval, fingerprint);
+                    appEntries.put(region, entry);
+                } else if (entry.fingerprint == null) {
+                    entry.fingerprint = fingerprint;
+                } else if (fingerprint.equals(entry.fingerprint)) {
+                    entry.interval = clamp(Duration.ofMillis((long) (entry.interval.toMillis() * BACKOFF)));
+                } else {
+                    changed++;
+                    entry.interval = clamp(entry.interval.dividedBy(2));
+                    entry.fingerprint = fingerprint;
+                }
+                entry.nextDue = now.plus(entry.interval);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Make every region due now at {@code minInterval} if the ISO week differs
+     * from the one last seen.
+     *
+     * @return Whether the week rolled over
+     */
+    synchronized boolean rollWeek(int currentYear, int currentWeek, Instant now) {
+        boolean rolled = year != 0 && (year != currentYear || week != currentWeek);
+        year = currentYear;
+        week = currentWeek;
+        if (rolled) {
+            for (Map<String, Entry> regions : entries.values()) {
+                for (Entry entry : regions.values()) {
+                    entry.interval = minInterval;
+                    entry.nextDue = now;
+                }
+            }
+        }
+        return rolled;
+    }
+
+    /**
+     * Regions scheduled.
+     */
+    synchronized int size() {
+        return entries.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private Duration clamp(Duration interval) {
+        if (interval.compareTo(minInterval) < 0) {
+            return minInterval;
+        }
+        return interval.compareTo(maxInterval) > 0 ? maxInterval : interval;
+    }
+
+    private static final class Entry {
+        Duration interval;
+        /** Null until the region was scanned successfully. */
+        Fingerprint fingerprint;
+        Instant nextDue = Instant.MIN;
+
+        Entry(Duration interval, Fingerprint fingerprint) {
+            this.interval = interval;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * What identifies a region's inventory, independent of classification.
+     */
+    record Fingerprint(int servers, int images, long hash) {
+
+        static Fingerprint of(RegionResult result) {
+            int servers = 0;
+            long hash = 0;
+            Set<String> images = new HashSet<>();
+            for (List<ServerInfo> list : List.of(nullSafe(result.getGoodServers()), nullSafe(result.getBadServers()))) {
+                for (ServerInfo server : list) {
+                    servers++;
+                    if (server.getImageId() != null) {
+                        images.add(server.getImageId());
+                    }
+                    // Summed, so the order servers are listed in does not matter
+                    hash += mix(((long) Objects.hashCode(server.getName()) << 32)
+                            ^ (Objects.hashCode(server.getImageId()) & 0xFFFFFFFFL));
+                }
+            }
+            return new Fingerprint(servers, images.size(), hash);
+        }
+
+        private static List<ServerInfo> nullSafe(List<ServerInfo> servers) {
+            return servers != null ? servers : List.of();
+        }
+
+        /**
+         * MurmurHash3 64-bit finalizer.
+         */
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
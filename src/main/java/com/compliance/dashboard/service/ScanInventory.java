@@ -0,0 +1,214 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.model.AppConfig;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Region inventories and IAMaaS tokens fetched during one scan, shared by the
+ * apps that use the same OCS account. The first app to need an (account,
+ * region) inventory fetches it with its own token; apps on the same account
+ * wait for that fetch instead of repeating it. If the fetch fails, each
+ * waiting app falls back to fetching with its own credentials, since the
+ * failure may be specific to the first app's token or scopes.
+ *
+ * An inventory is dropped once every app planned for its account has read it
+ * or has {@linkplain #finished finished} without reading it, so a scan holds
+ * no more inventories than it has to.
+ *
+ * Apps configured with the same IAMaaS endpoint, client and scope get the
+ * token the first of them requested, failure included, as the request would
+ * be identical.
+ */
+class ScanInventory {
+
+    private final Map<String, AtomicInteger> pendingReaders = new ConcurrentHashMap<>();
+    /** (account, region) keys each app is planned to read and has not yet released. */
+    private final Map<String, Set<String>> unreleased = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<RegionInventory>> inventories = new ConcurrentHashMap<>();
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicInteger shared = new AtomicInteger();
+    private final Map<String, CompletableFuture<String>> tokens = new ConcurrentHashMap<>();
+    private final AtomicInteger sharedTokens = new AtomicInteger();
+
+    /**
+     * Plan a scan of the given apps in the given regions.
+     */
+    ScanInventory(Map<String, AppConfig> apps, List<String> regions) {
+        apps.forEach((appName, app) -> plan(appName, app, regions));
+    }
+
+    /**
+     * Plan a scan of each app in its own regions.
+     *
+     * @param regionsByApp Regions to scan by app name, for apps of the given configs
+     */
+    ScanInventory(Map<String, AppConfig> apps, Map<String, ? extends Collection<String>> regionsByApp) {
+        apps.forEach((appName, app) -> plan(appName, app, regionsByApp.get(appName)));
+    }
+
+    private void plan(String appName, AppConfig app, Collection<String> regions) {
+        if (app.getAccountId() == null || regions == null) {
+            return;
+        }
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        for (String region : regions) {
+            String key = key(app.getAccountId(), region);
+            if (keys.add(key)) {
+                pendingReaders.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            }
+        }
+        unreleased.put(appName, keys);
+    }
+
+    /**
+     * Inventory of an account in a region, fetched once per scan.
+     *
+     * @param appName App asking for the inventory
+     * @param fetch Fetches the inventory with the asking app's credentials
+     */
+    RegionInventory get(String appName, String accountId, String region, Supplier<RegionInventory> fetch) {
+        if (accountId == null) {
+            fetched.incrementAndGet();
+            return fetch.get();
+        }
+        String key = key(accountId, region);
+        try {
+            while (true) {
+                CompletableFuture<RegionInventory> own = new CompletableFuture<>();
+                CompletableFuture<RegionInventory> existing = inventories.putIfAbsent(key, own);
+                if (existing == null) {
+                    try {
+                        RegionInventory inventory = fetch.get();
+                        fetched.incrementAndGet();
+                        own.complete(inventory);
+                        return inventory;
+                    } catch (RuntimeException e) {
+                        // Let the next app try with its own credentials
+                        inventories.remove(key, own);
+                        own.completeExceptionally(e);
+                        throw e;
+                    }
+                }
+                try {
+                    RegionInventory inventory = existing.join();
+                    shared.incrementAndGet();
+                    return inventory;
+                } catch (CompletionException e) {
+                    // The fetching app failed; fetch (or wait for the next fetch) ourselves
+                }
+            }
+        } finally {
+            release(appName, key);
+        }
+    }
+
+    /**
+     * Give up the reads an app was planned for but has not made, e.g. because
+     * its check failed or was abandoned before reaching every region. Must be
+     * called once the app's check is over, whichever way it ended.
+     */
+    void finished(String appName) {
+        Set<String> keys = unreleased.get(appName);
+        if (keys != null) {
+            keys.forEach(key -> release(appName, key));
+            unreleased.remove(appName);
+        }
+    }
+
+    /**
+     * IAMaaS token for an app's credentials and scope, requested once per scan.
+     *
+     * @param request Requests the token with the app's credentials
+     */
+    String token(AppConfig app, String scope, Supplier<String> request) {
+        String key = String.join("\n", app.getIamaasUrl(), app.getClientId(), app.getClientSecret(), scope);
+        CompletableFuture<String> own = new CompletableFuture<>();
+        CompletableFuture<String> existing = tokens.putIfAbsent(key, own);
+        if (existing == null) {
+            try {
+                String token = request.get();
+                own.complete(token);
+                return token;
+            } catch (RuntimeException e) {
+                own.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            String token = existing.join();
+            sharedTokens.incrementAndGet();
+            return token;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Inventories fetched from OCS during the scan.
+     */
+    int getFetched() {
+        return fetched.get();
+    }
+
+    /**
+     * Inventory reads answered by another app's fetch.
+     */
+    int getShared() {
+        return shared.get();
+    }
+
+    /**
+     * Token requests answered by another app's request.
+     */
+    int getSharedTokens() {
+        return sharedTokens.get();
+    }
+
+    /**
+     * Release an app's read of a key; only the first release of a planned read counts.
+     */
+    private void release(String appName, String key) {
+        Set<String> keys = unreleased.get(appName);
+        if (keys == null || !keys.remove(key)) {
+            return;
+        }
+        AtomicInteger readers = pendingReaders.get(key);
+        if (readers != null && readers.decrementAndGet() <= 0) {
+            inventories.remove(key);
+        }
+    }
+
+    private static String key(String accountId, String region) {
+        return accountId + '\n' + region;
+    }
+
+    /**
+     * Servers of an account in a region with their image names resolved.
+     * Immutable once fetched.
+     */
+    static final class RegionInventory {
+        final String fetchedBy;
+        final List<String> serverNames;
+        /** Image ID per server, null for servers without one. */
+        final List<String> imageIds;
+        /** Image name per image ID, null for failed lookups. */
+        final Map<String, String> imageNames;
+
+        RegionInventory(String fetchedBy, List<String> serverNames, List<String> imageIds,
+                        Map<String, String> imageNames) {
+            this.fetchedBy = fetchedBy;
+            this.serverNames = serverNames;
+            this.imageIds = imageIds;
+            this.imageNames = imageNames;
+        }
+    }
+}
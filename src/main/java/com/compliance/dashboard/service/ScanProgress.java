@@ -0,0 +1,61 @@
+package com.compliance.dashboard.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Apps and regions completed so far by a running scan.
+ *
+ * An app counts as completed once its check ends, however it ends; its
+ * regions then count as completed too, even those it never reached. Regions
+ * reported by a check that already timed out are ignored.
+ */
+public class ScanProgress {
+
+    private int appsTotal;
+    private int regionsPerApp;
+    private int appsCompleted;
+    private int regionsCompleted;
+    private final Map<String, Integer> regionsByApp = new HashMap<>();
+    private final Set<String> completedApps = new HashSet<>();
+
+    synchronized void start(int apps, int regionsPerApp) {
+        this.appsTotal = apps;
+        this.regionsPerApp = regionsPerApp;
+    }
+
+    synchronized void regionCompleted(String appName) {
+        if (completedApps.contains(appName)) {
+            return;
+        }
+        regionsByApp.merge(appName, 1, Integer::sum);
+        regionsCompleted++;
+    }
+
+    synchronized void appCompleted(String appName) {
+        if (!completedApps.add(appName)) {
+            return;
+        }
+        Integer reported = regionsByApp.remove(appName);
+        regionsCompleted += regionsPerApp - (reported != null ? reported : 0);
+        appsCompleted++;
+    }
+
+    public synchronized int getAppsTotal() {
+        return appsTotal;
+    }
+
+    public synchronized int getAppsCompleted() {
+        return appsCompleted;
+    }
+
+    public synchronized int getRegionsTotal() {
+        return appsTotal * regionsPerApp;
+    }
+
+    public synchronized int getRegionsCompleted() {
+        return regionsCompleted;
+    }
+}
@@ -0,0 +1,67 @@
+package com.compliance.dashboard.service;
+
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response body serialized once at publish time, with a pre-compressed gzip
+ * variant and an ETag for each, so it can be written to any number of clients without
+ * re-serializing or re-compressing. The byte arrays are shared and must not be modified.
+ */
+public class SerializedResponse {
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+
+    private SerializedResponse(byte[] json, byte[] gzip, String digest) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = "\"" + digest + "\"";
+        // A strong validator must differ between content codings
+        this.gzipEtag = "\"" + digest + "-gzip\"";
+    }
+
+    /**
+     * Build a response from serialized JSON, compressing it once.
+     */
+    public static SerializedResponse of(byte[] json) {
+        return new SerializedResponse(json, gzip(json), DigestUtils.md5DigestAsHex(json));
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getGzipEtag() {
+        return gzipEtag;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 8));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to gzip response", e);
+        }
+        return out.toByteArray();
+    }
+}
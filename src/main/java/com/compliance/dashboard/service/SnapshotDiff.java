@@ -0,0 +1,251 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.model.ComplianceResult;
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import com.compliance.dashboard.model.ImageDictionary;
+import com.compliance.dashboard.model.RegionResult;
+import com.compliance.dashboard.model.ServerChange;
+import com.compliance.dashboard.model.ServerInfo;
+import com.compliance.dashboard.model.ServerStatus;
+import com.compliance.dashboard.model.ServerTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Servers added, removed, newly non-compliant and newly compliant between two
+ * snapshots.
+ *
+ * Apps and regions are walked in name order and, since server tables are
+ * sorted by name, each region is compared with a single linear merge of the
+ * two snapshots' rows. Only the changes are materialized. Regions that failed
+ * in either snapshot are reported as skipped rather than as mass additions or
+ * removals; unnamed servers cannot be matched and are ignored.
+ */
+public final class SnapshotDiff {
+
+    private final List<ServerChange> added = new ArrayList<>();
+    private final List<ServerChange> removed = new ArrayList<>();
+    private final List<ServerChange> newlyNonCompliant = new ArrayList<>();
+    private final List<ServerChange> newlyCompliant = new ArrayList<>();
+    private final List<Map<String, Object>> skipped = new ArrayList<>();
+
+    private SnapshotDiff() {
+    }
+
+    /**
+     * Compare two snapshots.
+     *
+     * @param from Older snapshot
+     * @param to Newer snapshot
+     * @return Response body with both snapshots' timestamps, counts and changed servers
+     */
+    public static Map<String, Object> compute(ComplianceSnapshot from, ComplianceSnapshot to) {
+        long start = System.nanoTime();
+        SnapshotDiff diff = new SnapshotDiff();
+
+        TreeSet<String> appNames = new TreeSet<>(from.getApps().keySet());
+        appNames.addAll(to.getApps().keySet());
+        for (String appName : appNames) {
+            diff.compareApp(appName, from.getApps().get(appName), to.getApps().get(appName));
+        }
+
+        Map<String, Object> counts = new HashMap<>();
+        counts.put("added", diff.added.size());
+        counts.put("removed", diff.removed.size());
+        counts.put("newly_non_compliant", diff.newlyNonCompliant.size());
+        counts.put("newly_compliant", diff.newlyCompliant.size());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("from", describe(from));
+        response.put("to", describe(to));
+        response.put("counts", counts);
+        response.put("added", diff.added);
+        response.put("removed", diff.removed);
+        response.put("newly_non_compliant", diff.newlyNonCompliant);
+        response.put("newly_compliant", diff.newlyCompliant);
+        response.put("skipped", diff.skipped);
+        response.put("diff_ms", (System.nanoTime() - start) / 1_000_000.0);
+        return response;
+    }
+
+    private void compareApp(String appName, ComplianceResult from, ComplianceResult to) {
+        if (from != null && to != null && (from.getError() != null || to.getError() != null)) {
+            skip(appName, null, from.getError() != null ? from.getError() : to.getError());
+            return;
+        }
+        Map<String, RegionResult> fromRegions = regions(from);
+        Map<String, RegionResult> toRegions = regions(to);
+        TreeSet<String> regionNames = new TreeSet<>(fromRegions.keySet());
+        regionNames.addAll(toRegions.keySet());
+        for (String region : regionNames) {
+            RegionResult fromRegion = fromRegions.get(region);
+            RegionResult toRegion = toRegions.get(region);
+            String error = fromRegion != null && fromRegion.getError() != null ? fromRegion.getError()
+                    : toRegion != null && toRegion.getError() != null ? toRegion.getError()
+                    : null;
+            if (error != null) {
+                skip(appName, region, error);
+                continue;
+            }
+            compareRegion(appName, region, new Rows(fromRegion), new Rows(toRegion));
+        }
+    }
+
+    /**
+     * Merge the name-ordered rows of one region in both snapshots.
+     */
+    private void compareRegion(String appName, String region, Rows from, Rows to) {
+        while (from.hasRow() && to.hasRow()) {
+            int order = from.name().compareTo(to.name());
+            if (order < 0) {
+                removed.add(from.change(appName, region));
+                from.advance();
+            } else if (order > 0) {
+                added.add(to.change(appName, region));
+                to.advance();
+            } else {
+                if (from.compliant() && !to.compliant()) {
+                    newlyNonCompliant.add(to.changeFrom(appName, region, from));
+                } else if (!from.compliant() && to.compliant()) {
+                    newlyCompliant.add(to.changeFrom(appName, region, from));
+                }
+                from.advance();
+                to.advance();
+            }
+        }
+        for (; from.hasRow(); from.advance()) {
+            removed.add(from.change(appName, region));
+        }
+        for (; to.hasRow(); to.advance()) {
+            added.add(to.change(appName, region));
+        }
+    }
+
+    private void skip(String appName, String region, String error) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("app_name", appName);
+        if (region != null) {
+            entry.put("region", region);
+        }
+        entry.put("error", error);
+        skipped.add(entry);
+    }
+
+    private static Map<String, RegionResult> regions(ComplianceResult result) {
+        return result != null && result.getRegions() != null ? result.getRegions() : Collections.emptyMap();
+    }
+
+    private static Map<String, Object> describe(ComplianceSnapshot snapshot) {
+        Map<String, Object> description = new HashMap<>();
+        description.put("timestamp", snapshot.getTimestamp());
+        description.put("current_year", snapshot.getCurrentYear());
+        description.put("current_week", snapshot.getCurrentWeek());
+        return description;
+    }
+
+    private static ServerTable table(List<ServerInfo> servers) {
+        if (servers == null) {
+            return ServerTable.of(Collections.emptyList(), new ImageDictionary());
+        }
+        return servers instanceof ServerTable
+                ? (ServerTable) servers
+                : ServerTable.of(servers, new ImageDictionary());
+    }
+
+    /**
+     * Named rows of a region's good and bad tables in name order.
+     */
+    private static final class Rows {
+        private final ServerTable good;
+        private final ServerTable bad;
+        private int goodIndex;
+        private int badIndex;
+        private ServerTable table;
+        private int index;
+        private String name;
+
+        Rows(RegionResult region) {
+            good = table(region != null ? region.getGoodServers() : null);
+            bad = table(region != null ? region.getBadServers() : null);
+            goodIndex = skipUnnamed(good, 0);
+            badIndex = skipUnnamed(bad, 0);
+            select();
+        }
+
+        boolean hasRow() {
+            return table != null;
+        }
+
+        String name() {
+            return name;
+        }
+
+        boolean compliant() {
+            return table.getStatus(index) == ServerStatus.COMPLIANT;
+        }
+
+        void advance() {
+            if (table == good) {
+                goodIndex = skipUnnamed(good, goodIndex + 1);
+            } else {
+                badIndex = skipUnnamed(bad, badIndex + 1);
+            }
+            select();
+        }
+
+        ServerChange change(String appName, String region) {
+            ImageDictionary images = table.getImages();
+            int ref = table.imageRef(index);
+            return ServerChange.builder()
+                    .appName(appName)
+                    .region(region)
+                    .name(name)
+                    .imageId(images.getId(ref))
+                    .imageName(images.getName(ref))
+                    .reason(table.getStatus(index).getReason())
+                    .build();
+        }
+
+        /**
+         * This row's change, noting the image of the same server in the older snapshot if it differs.
+         */
+        ServerChange changeFrom(String appName, String region, Rows previous) {
+            ServerChange change = change(appName, region);
+            String previousImage = previous.table.getImages().getName(previous.table.imageRef(previous.index));
+            if (!Objects.equals(previousImage, change.getImageName())) {
+                change.setPreviousImageName(previousImage);
+            }
+            return change;
+        }
+
+        private void select() {
+            String goodName = goodIndex < good.size() ? good.getName(goodIndex) : null;
+            String badName = badIndex < bad.size() ? bad.getName(badIndex) : null;
+            if (goodName != null && (badName == null || goodName.compareTo(badName) <= 0)) {
+                table = good;
+                index = goodIndex;
+                name = goodName;
+            } else if (badName != null) {
+                table = bad;
+                index = badIndex;
+                name = badName;
+            } else {
+                table = null;
+                name = null;
+            }
+        }
+
+        private static int skipUnnamed(ServerTable table, int index) {
+            while (index < table.size() && table.getName(index) == null) {
+                index++;
+            }
+            return index;
+        }
+    }
+}
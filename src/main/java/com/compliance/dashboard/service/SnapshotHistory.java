@@ -0,0 +1,89 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.model.ComplianceSnapshot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Past snapshots kept for diffs. The two newest snapshots are always kept, so
+ * the latest scan can be compared with the one before it; older ones are
+ * thinned to the last snapshot of each {@code spacing} interval and dropped
+ * after {@code retention}.
+ *
+ * A snapshot with the timestamp of a kept one, such as a scan reclassified
+ * for a new ISO week, replaces it.
+ */
+class SnapshotHistory {
+
+    private final Duration retention;
+    private final long spacingSeconds;
+    /** Oldest first. */
+    private final List<ComplianceSnapshot> snapshots = new ArrayList<>();
+
+    SnapshotHistory(Duration retention, Duration spacing) {
+        this.retention = retention;
+        this.spacingSeconds = Math.max(1, spacing.getSeconds());
+    }
+
+    synchronized void add(ComplianceSnapshot snapshot) {
+        int position = snapshots.size();
+        while (position > 0 && snapshots.get(position - 1).getTimestamp().isAfter(snapshot.getTimestamp())) {
+            position--;
+        }
+        if (position > 0 && snapshots.get(position - 1).getTimestamp().isEqual(snapshot.getTimestamp())) {
+            snapshots.set(position - 1, snapshot);
+        } else {
+            snapshots.add(position, snapshot);
+        }
+
+        LocalDateTime newest = snapshots.get(snapshots.size() - 1).getTimestamp();
+        LocalDateTime cutoff = newest.minus(retention);
+        for (int i = snapshots.size() - 3; i >= 0; i--) {
+            ComplianceSnapshot entry = snapshots.get(i);
+            if (entry.getTimestamp().isBefore(cutoff) || bucket(entry) == bucket(snapshots.get(i + 1))) {
+                snapshots.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Latest snapshot taken at or before the given time, or null.
+     */
+    synchronized ComplianceSnapshot asOf(LocalDateTime time) {
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            if (!snapshots.get(i).getTimestamp().isAfter(time)) {
+                return snapshots.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Latest snapshot taken before the given time, or null.
+     */
+    synchronized ComplianceSnapshot before(LocalDateTime time) {
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            if (snapshots.get(i).getTimestamp().isBefore(time)) {
+                return snapshots.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Timestamps of the kept snapshots, oldest first.
+     */
+    synchronized List<LocalDateTime> timestamps() {
+        List<LocalDateTime> timestamps = new ArrayList<>(snapshots.size());
+        snapshots.forEach(snapshot -> timestamps.add(snapshot.getTimestamp()));
+        return timestamps;
+    }
+
+    private long bucket(ComplianceSnapshot snapshot) {
+        return Math.floorDiv(snapshot.getTimestamp().toEpochSecond(ZoneOffset.UTC), spacingSeconds);
+    }
+}
@@ -0,0 +1,339 @@
+package com.compliance.dashboard.service;
+
+import com.compliance.dashboard.client.ImageCatalog;
+import com.compliance.dashboard.model.ComplianceSnapshot;
+import com.compliance.dashboard.shard.ShardMembership;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the latest all-apps compliance snapshot.
+ * Each snapshot is serialized and compressed once when published, so serving
+ * it costs no per-request JSON or gzip work.
+ *
+ * Every published snapshot is written atomically to local disk and reloaded
+ * at startup, so a restarted instance can serve the last known (stale)
+ * results while the first fresh scan runs. The directory is locked while the
+ * instance runs; in sharded mode, where replicas hold different snapshots,
+ * startup fails if another replica already holds it.
+ *
+ * Past snapshots are kept in memory in a thinned {@link SnapshotHistory} so
+ * they can be diffed against newer ones.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SnapshotService {
+
+    private static final String SNAPSHOT_FILE = "snapshot.json";
+    private static final String LOCK_FILE = "snapshot.lock";
+    /** Image names persisted by earlier versions, imported into the image catalog once. */
+    private static final String LEGACY_IMAGE_CACHE_FILE = "image-cache.json";
+
+    private final ComplianceService complianceService;
+    private final ImageCatalog imageCatalog;
+    private final ShardMembership shardMembership;
+    private final ObjectMapper objectMapper;
+
+    @Value("${compliance.snapshot.persist:true}")
+    private boolean persist;
+
+    @Value("${compliance.snapshot.dir:./data}")
+    private String snapshotDir;
+
+    @Value("${compliance.snapshot.readiness:stale}")
+    private ReadinessMode readinessMode;
+
+    @Value("${compliance.snapshot.history.retention:P8D}")
+    private Duration historyRetention;
+
+    @Value("${compliance.snapshot.history.spacing:PT6H}")
+    private Duration historySpacing;
+
+    private final AtomicReference<PublishedSnapshot> current = new AtomicReference<>();
+    private volatile boolean freshScanCompleted;
+    private CompletableFuture<ComplianceSnapshot> inFlight;
+    private SnapshotHistory history;
+    /** Held open for the lifetime of the instance, with the lock on the snapshot directory. */
+    private FileChannel lockChannel;
+
+    /**
+     * When the instance reports ready.
+     */
+    public enum ReadinessMode {
+        /** Ready as soon as any snapshot, even a stale one from disk, can be served. */
+        STALE,
+        /** Ready only once a fresh scan has completed since startup. */
+        FRESH
+    }
+
+    @PostConstruct
+    public void init() {
+        history = new SnapshotHistory(historyRetention, historySpacing);
+        if (!persist) {
+            return;
+        }
+        Path dir = Paths.get(snapshotDir);
+        lockDirectory(dir);
+        try {
+            Path imageCacheFile = dir.resolve(LEGACY_IMAGE_CACHE_FILE);
+            if (Files.exists(imageCacheFile)) {
+                Map<String, Map<String, String>> entries = objectMapper.readValue(
+                        imageCacheFile.toFile(), new TypeReference<Map<String, Map<String, String>>>() {});
+                entries.forEach((region, names) ->
+                        names.forEach((imageId, imageName) -> imageCatalog.put(region, imageId, imageName)));
+                Files.delete(imageCacheFile);
+                log.info("Imported {} into the image catalog, which now holds {} image names",
+                        imageCacheFile, imageCatalog.size());
+            }
+            Path snapshotFile = dir.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshotFile)) {
+                ComplianceSnapshot snapshot = objectMapper.readValue(snapshotFile.toFile(), ComplianceSnapshot.class);
+                snapshot.setStale(true);
+                // Covers the shard of the replica's current settings, whatever they were when it was written
+                snapshot.setShard(complianceService.getScanShard());
+                snapshot.setPartial(snapshot.getShard() != null ? Boolean.TRUE : null);
+                PublishedSnapshot restored = prepare(complianceService.restore(snapshot));
+                if (current.compareAndSet(null, restored)) {
+                    history.add(restored.getSnapshot());
+                }
+                log.info("Restored stale snapshot from {} taken at {}", snapshotFile, snapshot.getTimestamp());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to restore persisted snapshot from {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Lock the snapshot directory against other instances. Sharded replicas
+     * sharing it would overwrite each other's snapshots, so they must not
+     * start; other instances write equivalent snapshots and only get a warning.
+     *
+     * @throws IllegalStateException in sharded mode, if another instance holds the lock
+     */
+    private void lockDirectory(Path dir) {
+        boolean locked;
+        try {
+            Files.createDirectories(dir);
+            lockChannel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            locked = lockChannel.tryLock() != null;
+        } catch (IOException e) {
+            log.warn("Failed to lock snapshot directory {}: {}", dir, e.getMessage());
+            return;
+        }
+        if (locked) {
+            return;
+        }
+        if (shardMembership.isEnabled()) {
+            throw new IllegalStateException("Snapshot directory " + dir
+                    + " is in use by another replica; set compliance.snapshot.dir to a directory of this replica's own");
+        }
+        log.warn("Snapshot directory {} is in use by another instance, which will overwrite this one's snapshots", dir);
+    }
+
+    /**
+     * Latest snapshot, possibly stale.
+     *
+     * @return Snapshot or null if none is available yet
+     */
+    public ComplianceSnapshot getCurrent() {
+        PublishedSnapshot published = current.get();
+        return published != null ? published.getSnapshot() : null;
+    }
+
+    /**
+     * Latest published snapshot with its pre-serialized responses,
+     * running a scan first if none is available yet.
+     */
+    public PublishedSnapshot getOrRefresh() {
+        PublishedSnapshot published = current.get();
+        if (published != null) {
+            return published;
+        }
+        refresh();
+        return current.get();
+    }
+
+    /**
+     * Run a full scan and publish the result.
+     * Concurrent callers share a single in-flight scan.
+     */
+    public ComplianceSnapshot refresh() {
+        CompletableFuture<ComplianceSnapshot> future;
+        boolean owner = false;
+        synchronized (this) {
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                owner = true;
+            }
+            future = inFlight;
+        }
+
+        if (owner) {
+            try {
+                ComplianceSnapshot snapshot = complianceService.checkAllAppsCompliance(false);
+                publish(snapshot);
+                future.complete(snapshot);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    inFlight = null;
+                }
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Publish a freshly scanned snapshot and persist it.
+     */
+    public void publish(ComplianceSnapshot snapshot) {
+        // A scan that straddled the week boundary is brought up to the current week
+        PublishedSnapshot published = prepare(complianceService.reclassifyIfWeekChanged(snapshot));
+        current.set(published);
+        history.add(published.getSnapshot());
+        freshScanCompleted = true;
+        if (persist) {
+            persist(published);
+        }
+    }
+
+    /**
+     * Reclassify the current snapshot in memory if the ISO week has rolled over
+     * since it was classified. A concurrently published snapshot wins. The
+     * reclassified snapshot takes the place of the original in the history, so
+     * later diffs compare against what was actually served.
+     */
+    public void rollWeekIfNeeded() {
+        PublishedSnapshot published = current.get();
+        if (published == null) {
+            return;
+        }
+        ComplianceSnapshot snapshot = published.getSnapshot();
+        ComplianceSnapshot reclassified = complianceService.reclassifyIfWeekChanged(snapshot);
+        if (reclassified != snapshot) {
+            PublishedSnapshot rolled = prepare(reclassified);
+            if (current.compareAndSet(published, rolled)) {
+                history.add(rolled.getSnapshot());
+            }
+        }
+    }
+
+    /**
+     * Latest snapshot taken at or before the given time: the current one or
+     * one kept in the history.
+     *
+     * @return Snapshot or null if none that old is kept
+     */
+    public ComplianceSnapshot findAsOf(LocalDateTime time) {
+        ComplianceSnapshot latest = getCurrent();
+        if (latest != null && !latest.getTimestamp().isAfter(time)) {
+            return latest;
+        }
+        return history.asOf(time);
+    }
+
+    /**
+     * Kept snapshot taken before the given one, or null.
+     */
+    public ComplianceSnapshot findPrevious(ComplianceSnapshot snapshot) {
+        return history.before(snapshot.getTimestamp());
+    }
+
+    /**
+     * Timestamps of the snapshots kept for diffs, oldest first.
+     */
+    public List<LocalDateTime> getHistory() {
+        return history.timestamps();
+    }
+
+    /**
+     * Whether the instance can serve traffic under the configured readiness mode.
+     */
+    public boolean isReady() {
+        return readinessMode == ReadinessMode.FRESH ? freshScanCompleted : current.get() != null;
+    }
+
+    public boolean isFreshScanCompleted() {
+        return freshScanCompleted;
+    }
+
+    public ReadinessMode getReadinessMode() {
+        return readinessMode;
+    }
+
+    /**
+     * Serialize and compress the snapshot and its summary once, up front,
+     * and build its fleet index.
+     */
+    private PublishedSnapshot prepare(ComplianceSnapshot snapshot) {
+        try {
+            return new PublishedSnapshot(snapshot,
+                    SerializedResponse.of(objectMapper.writeValueAsBytes(snapshot)),
+                    SerializedResponse.of(objectMapper.writeValueAsBytes(complianceService.summarize(snapshot))),
+                    FleetIndex.build(snapshot));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize compliance snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private void persist(PublishedSnapshot published) {
+        Path dir = Paths.get(snapshotDir);
+        ComplianceSnapshot snapshot = published.getSnapshot();
+        try {
+            Files.createDirectories(dir);
+            writeAtomically(dir.resolve(SNAPSHOT_FILE), published.getResponse().getJson());
+            log.info("Persisted snapshot taken at {} to {}", snapshot.getTimestamp(), dir);
+        } catch (Exception e) {
+            log.warn("Failed to persist snapshot to {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Write to a temporary sibling file and rename it over the target,
+     * so readers never observe a partially written file.
+     */
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, content);
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
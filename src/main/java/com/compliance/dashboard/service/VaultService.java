@@ -12,16 +12,28 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service for interacting with HashiCorp Vault.
  * Retrieves application configurations stored in Vault.
+ *
+ * The AppRole client token is cached with its lease and renewed in the
+ * background with {@code auth/token/renew-self} ahead of expiry. A fresh login
+ * replaces it only when renewal fails, the token reaches its max TTL or Vault
+ * rejects it; concurrent callers share one in-flight login.
  */
 @Slf4j
 @Service
@@ -48,7 +60,15 @@ public class VaultService {
     @Value("${vault.skip-verify:false}")
     private boolean skipVerify;
 
+    @Value("${vault.token.renew-before-expiry:PT5M}")
+    private Duration renewBeforeExpiry;
+
+    /** Tokens this close to expiry are not handed out any more. */
+    private static final Duration EXPIRY_MARGIN = Duration.ofSeconds(5);
+
     private WebClient vaultClient;
+    private volatile VaultToken token;
+    private CompletableFuture<VaultToken> loginInFlight;
 
     @PostConstruct
     public void init() {
@@ -80,8 +100,15 @@ public class VaultService {
     public Map<String, AppConfig> getAllConfigs() {
         try {
             log.info("Retrieving configurations from Vault path: {}", configPath);
-            String token = login();
-            Map<String, Object> data = readSecret(token);
+            VaultToken current = currentToken();
+            Map<String, Object> data;
+            try {
+                data = readSecret(current.value);
+            } catch (WebClientResponseException.Forbidden e) {
+                // Revoked or expired behind our back
+                log.warn("Vault rejected the cached token, logging in again");
+                data = readSecret(sharedLogin(current).value);
+            }
             
             // Convert each app config to AppConfig object
             Map<String, AppConfig> configs = new java.util.HashMap<>();
@@ -120,6 +147,10 @@ public class VaultService {
         return getAllConfigs().keySet();
     }
 
+    public String getVaultUri() {
+        return vaultUri;
+    }
+
     /**
      * Test Vault connectivity.
      *
@@ -127,14 +158,7 @@ public class VaultService {
      */
     public boolean testConnection() {
         try {
-            String url = vaultUri + "/v1/sys/health";
-            Integer status = vaultClient.get()
-                    .uri(url)
-                    .headers(headers -> setNamespaceHeader(headers))
-                    .retrieve()
-                    .toBodilessEntity()
-                    .map(entity -> entity.getStatusCode().value())
-                    .block();
+            Integer status = healthStatus().block();
             return status != null && status < 500;
         } catch (Exception e) {
             log.error("Vault health check failed", e);
@@ -142,7 +166,129 @@ public class VaultService {
         }
     }
 
-    private String login() {
+    /**
+     * Call Vault {@code sys/health}.
+     * Standby, sealed and similar states are reported through the status code
+     * rather than as an error.
+     *
+     * @return HTTP status code of the health endpoint
+     */
+    public Mono<Integer> healthStatus() {
+        String url = vaultUri + "/v1/sys/health";
+        return vaultClient.get()
+                .uri(url)
+                .headers(headers -> setNamespaceHeader(headers))
+                .exchangeToMono(response -> response.releaseBody()
+                        .thenReturn(response.statusCode().value()));
+    }
+
+    /**
+     * Renew the cached token once it is due, or replace it with a fresh login
+     * when it cannot be renewed any further.
+     * A token is due {@code renew-before-expiry} ahead of expiry, or after two
+     * thirds of its lease when the lease is shorter than three times that.
+     */
+    @Scheduled(initialDelayString = "${vault.token.check-interval:PT10S}",
+            fixedDelayString = "${vault.token.check-interval:PT10S}")
+    public void renewTokenIfDue() {
+        VaultToken current = token;
+        if (current == null || !current.expires() || Instant.now().isBefore(current.renewAt(renewBeforeExpiry))) {
+            return;
+        }
+        
+        if (current.renewable) {
+            try {
+                VaultToken renewed = renewSelf(current);
+                // A shorter lease than before means renewal is capped by the max TTL
+                if (renewed.lease.compareTo(current.lease) >= 0) {
+                    // A login may have replaced (and revoked) the token while it was being renewed
+                    synchronized (this) {
+                        if (token != current) {
+                            log.info("Vault token was replaced during renewal, keeping the replacement");
+                            return;
+                        }
+                        token = renewed;
+                    }
+                    log.info("Renewed Vault token, lease {}s", renewed.lease.toSeconds());
+                    return;
+                }
+                log.info("Vault token reached its max TTL, logging in again");
+            } catch (Exception e) {
+                log.warn("Vault token renewal failed, logging in again: {}", e.getMessage());
+            }
+        } else {
+            log.info("Vault token is not renewable, logging in again before it expires");
+        }
+        
+        try {
+            sharedLogin(current);
+        } catch (Exception e) {
+            log.warn("Vault login failed, keeping the current token until it expires: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cached token, logging in first if there is none or it is about to expire.
+     */
+    private VaultToken currentToken() {
+        VaultToken current = token;
+        if (current != null && !current.expiresBy(Instant.now().plus(EXPIRY_MARGIN))) {
+            return current;
+        }
+        return sharedLogin(current);
+    }
+
+    /**
+     * Replace the given token with a fresh login. Concurrent callers share a
+     * single in-flight login, and a caller whose stale token has already been
+     * replaced gets the replacement without logging in again.
+     *
+     * @param stale Token being replaced, or null
+     */
+    private VaultToken sharedLogin(VaultToken stale) {
+        CompletableFuture<VaultToken> future;
+        boolean owner = false;
+        synchronized (this) {
+            VaultToken current = token;
+            if (current != stale && current != null && !current.expiresBy(Instant.now().plus(EXPIRY_MARGIN))) {
+                return current;
+            }
+            if (loginInFlight == null) {
+                loginInFlight = new CompletableFuture<>();
+                owner = true;
+            }
+            future = loginInFlight;
+        }
+
+        if (owner) {
+            try {
+                VaultToken fresh = login();
+                synchronized (this) {
+                    token = fresh;
+                }
+                future.complete(fresh);
+                if (stale != null) {
+                    revokeSelf(stale);
+                }
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    loginInFlight = null;
+                }
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new RuntimeException(e.getCause());
+        }
+    }
+
+    private VaultToken login() {
         if (!hasText(roleId) || !hasText(secretId)) {
             throw new RuntimeException("Missing VAULT_ROLE_ID or VAULT_SECRET_ID");
         }
@@ -170,11 +316,53 @@ public class VaultService {
         }
 
         Map<String, Object> auth = (Map<String, Object>) response.get("auth");
-        Object token = auth.get("client_token");
-        if (token == null) {
+        Object clientToken = auth.get("client_token");
+        if (clientToken == null) {
             throw new RuntimeException("No client_token in Vault login response");
         }
-        return token.toString();
+        VaultToken fresh = VaultToken.of(clientToken.toString(), auth);
+        log.info("Logged in to Vault, lease {}s, renewable: {}", fresh.lease.toSeconds(), fresh.renewable);
+        return fresh;
+    }
+
+    /**
+     * Extend the token's lease with {@code auth/token/renew-self}.
+     */
+    private VaultToken renewSelf(VaultToken current) {
+        Map<String, Object> response = vaultClient.post()
+                .uri(vaultUri + "/v1/auth/token/renew-self")
+                .headers(headers -> {
+                    headers.setContentType(MediaType.APPLICATION_JSON);
+                    headers.set("X-Vault-Token", current.value);
+                    setNamespaceHeader(headers);
+                })
+                .bodyValue(Map.of())
+                .retrieve()
+                .bodyToMono(Map.class)
+                .block();
+
+        if (response == null || !(response.get("auth") instanceof Map)) {
+            throw new RuntimeException("No auth data returned from Vault token renewal");
+        }
+        return VaultToken.of(current.value, (Map<String, Object>) response.get("auth"));
+    }
+
+    /**
+     * Revoke a replaced token in the background so replaced tokens do not pile
+     * up until their leases run out. Failures are only logged.
+     */
+    private void revokeSelf(VaultToken replaced) {
+        vaultClient.post()
+                .uri(vaultUri + "/v1/auth/token/revoke-self")
+                .headers(headers -> {
+                    headers.set("X-Vault-Token", replaced.value);
+                    setNamespaceHeader(headers);
+                })
+                .retrieve()
+                .toBodilessEntity()
+                .subscribe(
+                        response -> log.debug("Revoked replaced Vault token"),
+                        e -> log.debug("Failed to revoke replaced Vault token: {}", e.getMessage()));
     }
 
     private Map<String, Object> readSecret(String token) {
@@ -206,6 +394,48 @@ public class VaultService {
         return inner;
     }
 
+    /**
+     * Vault client token with the lease it was issued or renewed with.
+     */
+    private static final class VaultToken {
+        final String value;
+        final Instant leasedAt;
+        /** Zero for tokens that never expire. */
+        final Duration lease;
+        final boolean renewable;
+
+        private VaultToken(String value, Instant leasedAt, Duration lease, boolean renewable) {
+            this.value = value;
+            this.leasedAt = leasedAt;
+            this.lease = lease;
+            this.renewable = renewable;
+        }
+
+        static VaultToken of(String value, Map<String, Object> auth) {
+            Object leaseDuration = auth.get("lease_duration");
+            long leaseSeconds = leaseDuration instanceof Number ? ((Number) leaseDuration).longValue() : 0;
+            return new VaultToken(value, Instant.now(), Duration.ofSeconds(Math.max(0, leaseSeconds)),
+                    Boolean.TRUE.equals(auth.get("renewable")));
+        }
+
+        boolean expires() {
+            return !lease.isZero();
+        }
+
+        Instant expiresAt() {
+            return leasedAt.plus(lease);
+        }
+
+        boolean expiresBy(Instant when) {
+            return expires() && !expiresAt().isAfter(when);
+        }
+
+        Instant renewAt(Duration renewBeforeExpiry) {
+            Duration before = renewBeforeExpiry.compareTo(lease.dividedBy(3)) < 0 ? renewBeforeExpiry : lease.dividedBy(3);
+            return expiresAt().minus(before);
+        }
+    }
+
     private String normalizeConfigPath(String path) {
         String normalized = path == null ? "" : path.trim();
         if (normalized.startsWith("/")) {
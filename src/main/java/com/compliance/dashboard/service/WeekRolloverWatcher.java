@@ -0,0 +1,42 @@
+package com.compliance.dashboard.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reclassifies the current snapshot in memory when the ISO week rolls over,
+ * so compliance flips at Monday 00:00 without waiting for a full rescan.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WeekRolloverWatcher {
+
+    private final SnapshotService snapshotService;
+
+    /**
+     * Fires right at the week boundary.
+     */
+    @Scheduled(cron = "0 0 0 * * MON")
+    public void onWeekStart() {
+        rollWeek();
+    }
+
+    /**
+     * Safety net for clock adjustments, missed triggers and snapshots restored at startup.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${compliance.week-rollover.check-interval:PT1M}")
+    public void check() {
+        rollWeek();
+    }
+
+    private void rollWeek() {
+        try {
+            snapshotService.rollWeekIfNeeded();
+        } catch (Exception e) {
+            log.error("Failed to reclassify snapshot for new ISO week", e);
+        }
+    }
+}
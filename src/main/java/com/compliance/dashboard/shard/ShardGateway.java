@@ -0,0 +1,497 @@
+package com.compliance.dashboard.shard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Serves sharded-mode queries that span replicas.
+ *
+ * Single-app requests for apps owned elsewhere are forwarded to the owner.
+ * All-apps responses are assembled from this replica's snapshot or summary
+ * and those of every peer, fetched in parallel; so are fleet queries, diffs
+ * and policy evaluations, which every replica answers over its own snapshots.
+ * An app reported by more than one replica (its owner changed since their last
+ * scans) is taken from its current owner when possible. Peers that fail or
+ * time out are listed under {@code unavailable_shards} instead of failing the
+ * response.
+ *
+ * Requests between replicas carry {@link #FORWARDED_HEADER} and are always
+ * answered from local state, so they are never forwarded again. Live all-apps
+ * scans (debug scans, exports, all-apps jobs) are not merged: they cover this
+ * replica's shard and say so with {@code partial} and {@code shard} fields, or
+ * with {@link #PARTIAL_HEADER} and {@link #SHARD_HEADER} for exports.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShardGateway {
+
+    public static final String FORWARDED_HEADER = "X-Compliance-Shard-Forwarded";
+    /** Set on responses that cover only the apps of the replica named by {@link #SHARD_HEADER}. */
+    public static final String PARTIAL_HEADER = "X-Compliance-Partial";
+    public static final String SHARD_HEADER = "X-Compliance-Shard";
+
+    /** Change lists of a diff response. */
+    private static final List<String> DIFF_LISTS =
+            List.of("added", "removed", "newly_non_compliant", "newly_compliant", "skipped");
+
+    private final ShardMembership membership;
+    private final ObjectMapper objectMapper;
+
+    @Value("${compliance.sharding.peer-timeout:PT30S}")
+    private Duration peerTimeout;
+
+    private WebClient peerClient;
+
+    @PostConstruct
+    public void init() {
+        // Snapshots are large: accept gzip and do not cap the body size
+        peerClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create().compress(true)))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(-1))
+                .build();
+    }
+
+    /**
+     * Whether requests should be answered across replicas: sharding is on and
+     * the request does not come from another replica.
+     */
+    public boolean spansReplicas(String forwardedHeader) {
+        return membership.isEnabled() && forwardedHeader == null;
+    }
+
+    /**
+     * Replica to forward a single-app request to, or null to answer locally.
+     */
+    public String forwardTarget(String appName, String forwardedHeader) {
+        if (!spansReplicas(forwardedHeader) || membership.owns(appName)) {
+            return null;
+        }
+        return membership.ownerOf(appName);
+    }
+
+    /**
+     * Send a GET to another replica and relay its status and JSON body.
+     *
+     * @param pathAndQuery Path with encoded query, e.g. {@code /api/compliance?app=APP1}
+     * @throws RuntimeException if the replica cannot be reached
+     */
+    public ResponseEntity<Object> forward(String member, String pathAndQuery) {
+        ResponseEntity<byte[]> response = peerClient.get()
+                .uri(member + pathAndQuery)
+                .header(FORWARDED_HEADER, "true")
+                .retrieve()
+                .onStatus(status -> true, clientResponse -> Mono.empty())
+                .toEntity(byte[].class)
+                .timeout(peerTimeout)
+                .block();
+        return ResponseEntity.status(response.getStatusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.getBody() != null ? response.getBody() : new byte[0]);
+    }
+
+    /**
+     * All-apps snapshot of every replica, merged into one response.
+     *
+     * @param localJson This replica's serialized snapshot
+     */
+    public ObjectNode mergeSnapshots(byte[] localJson) {
+        List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+        Map<String, JsonNode> peers = fetchFromPeers("/api/compliance", unavailable);
+
+        ObjectNode merged = (ObjectNode) readTree(localJson);
+        // The merged view covers every shard
+        merged.remove(List.of("partial", "shard"));
+        ObjectNode apps = merged.has("apps") ? (ObjectNode) merged.get("apps") : merged.putObject("apps");
+        Map<String, String> reportedBy = new HashMap<>();
+        apps.fieldNames().forEachRemaining(appName -> reportedBy.put(appName, membership.getSelf()));
+
+        peers.forEach((member, snapshot) -> {
+            JsonNode peerApps = snapshot.path("apps");
+            peerApps.fieldNames().forEachRemaining(appName -> {
+                if (preferred(appName, member, reportedBy)) {
+                    apps.set(appName, peerApps.get(appName));
+                    reportedBy.put(appName, member);
+                }
+            });
+            mergeAge(merged, snapshot);
+        });
+        addUnavailable(merged, unavailable);
+        return merged;
+    }
+
+    /**
+     * All-apps summary of every replica, merged into one response.
+     * Overall counts are recomputed from the merged per-app counts.
+     *
+     * @param localJson This replica's serialized summary
+     */
+    public ObjectNode mergeSummaries(byte[] localJson) {
+        List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+        Map<String, JsonNode> peers = fetchFromPeers("/api/compliance/summary", unavailable);
+
+        ObjectNode merged = (ObjectNode) readTree(localJson);
+        merged.remove(List.of("partial", "shard"));
+        Map<String, JsonNode> byApp = new LinkedHashMap<>();
+        Map<String, String> reportedBy = new HashMap<>();
+        merged.path("by_app").forEach(app -> {
+            byApp.put(app.path("app_name").asText(), app);
+            reportedBy.put(app.path("app_name").asText(), membership.getSelf());
+        });
+        peers.forEach((member, summary) -> {
+            summary.path("by_app").forEach(app -> {
+                String appName = app.path("app_name").asText();
+                if (preferred(appName, member, reportedBy)) {
+                    byApp.put(appName, app);
+                    reportedBy.put(appName, member);
+                }
+            });
+            mergeAge(merged, summary);
+        });
+
+        long total = 0;
+        long compliant = 0;
+        long nonCompliant = 0;
+        ArrayNode apps = merged.putArray("by_app");
+        for (JsonNode app : byApp.values()) {
+            apps.add(app);
+            total += app.path("total_servers").asLong();
+            compliant += app.path("compliant").asLong();
+            nonCompliant += app.path("non_compliant").asLong();
+        }
+        ObjectNode overall = merged.putObject("overall");
+        overall.put("total_servers", total);
+        overall.put("compliant", compliant);
+        overall.put("non_compliant", nonCompliant);
+        overall.put("compliance_percentage", percentage(compliant, total));
+        addUnavailable(merged, unavailable);
+        return merged;
+    }
+
+    /**
+     * Fleet query answered by every replica, merged into one response.
+     * Each app's servers come from a single replica, and the totals are
+     * recomputed from the per-app match counts of the replicas taken.
+     *
+     * @param local This replica's response, with {@code matches_by_app}
+     * @param pathAndQuery The query's path and encoded query, see {@link #pathAndQuery}
+     * @param limit Maximum number of servers in the merged response
+     */
+    public ObjectNode mergeFleetQueries(Map<String, Object> local, String pathAndQuery, int limit) {
+        List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+        ObjectNode merged = objectMapper.valueToTree(local);
+        Map<String, JsonNode> responses = withPeers(merged, fetchFromPeers(pathAndQuery, null, unavailable));
+        Map<String, String> reporters = reporters(responses, (response, apps) ->
+                response.path("matches_by_app").fieldNames().forEachRemaining(apps::add));
+
+        long indexed = 0;
+        long total = 0;
+        ArrayNode servers = objectMapper.createArrayNode();
+        ObjectNode byApp = objectMapper.createObjectNode();
+        for (Map.Entry<String, JsonNode> entry : responses.entrySet()) {
+            String member = entry.getKey();
+            JsonNode response = entry.getValue();
+            indexed += response.path("indexed_servers").asLong();
+            response.path("matches_by_app").fields().forEachRemaining(app -> {
+                if (member.equals(reporters.get(app.getKey()))) {
+                    byApp.set(app.getKey(), app.getValue());
+                }
+            });
+            for (JsonNode server : response.path("servers")) {
+                if (servers.size() < limit && member.equals(reporters.get(server.path("app_name").asText()))) {
+                    servers.add(server);
+                }
+            }
+            mergeAge(merged, response);
+        }
+        for (JsonNode matches : byApp) {
+            total += matches.asLong();
+        }
+
+        merged.put("indexed_servers", indexed);
+        merged.put("total_matches", total);
+        merged.put("returned", servers.size());
+        merged.put("truncated", total > servers.size());
+        merged.set("matches_by_app", sortedFields(byApp));
+        merged.set("servers", servers);
+        addUnavailable(merged, unavailable);
+        return merged;
+    }
+
+    /**
+     * Snapshot diff computed by every replica over its own history, merged
+     * into one response. Each app's changes come from a single replica;
+     * counts are recomputed from the merged lists, and {@code from} and
+     * {@code to} are as old as the oldest shard's snapshots.
+     *
+     * @param local This replica's response
+     * @param pathAndQuery The diff's path and encoded query, see {@link #pathAndQuery}
+     */
+    public ObjectNode mergeDiffs(Map<String, Object> local, String pathAndQuery) {
+        List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+        ObjectNode merged = objectMapper.valueToTree(local);
+        Map<String, JsonNode> responses = withPeers(merged, fetchFromPeers(pathAndQuery, null, unavailable));
+        Map<String, String> reporters = reporters(responses, (response, apps) ->
+                DIFF_LISTS.forEach(list -> response.path(list).forEach(change -> apps.add(change.path("app_name").asText()))));
+
+        Map<String, List<JsonNode>> lists = new LinkedHashMap<>();
+        DIFF_LISTS.forEach(list -> lists.put(list, new ArrayList<>()));
+        responses.forEach((member, response) -> {
+            for (String list : DIFF_LISTS) {
+                response.path(list).forEach(change -> {
+                    if (member.equals(reporters.get(change.path("app_name").asText()))) {
+                        lists.get(list).add(change);
+                    }
+                });
+            }
+            for (String side : List.of("from", "to")) {
+                JsonNode timestamp = response.path(side).get("timestamp");
+                ObjectNode described = (ObjectNode) merged.get(side);
+                if (timestamp != null && described != null && isBefore(timestamp, described.get("timestamp"))) {
+                    described.set("timestamp", timestamp);
+                }
+            }
+        });
+
+        Comparator<JsonNode> byServer = Comparator.<JsonNode, String>comparing(change -> change.path("app_name").asText())
+                .thenComparing(change -> change.path("region").asText())
+                .thenComparing(change -> change.path("name").asText());
+        ObjectNode counts = merged.putObject("counts");
+        lists.forEach((list, changes) -> {
+            changes.sort(byServer);
+            merged.putArray(list).addAll(changes);
+            if (!list.equals("skipped")) {
+                counts.put(list, changes.size());
+            }
+        });
+        addUnavailable(merged, unavailable);
+        return merged;
+    }
+
+    /**
+     * Policy evaluation computed by every replica over its own latest snapshot,
+     * merged into one response. Overall counts are recomputed from the merged
+     * per-app counts.
+     *
+     * @param local This replica's response
+     * @param pathAndQuery The evaluation's path and encoded query, see {@link #pathAndQuery}
+     * @param body Ad-hoc policy to POST to the peers, or null to GET
+     */
+    public ObjectNode mergeEvaluations(Map<String, Object> local, String pathAndQuery, Object body) {
+        List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+        ObjectNode merged = objectMapper.valueToTree(local);
+        Map<String, JsonNode> responses = withPeers(merged, fetchFromPeers(pathAndQuery, body, unavailable));
+        Map<String, String> reporters = reporters(responses, (response, apps) ->
+                response.path("by_app").forEach(app -> apps.add(app.path("app_name").asText())));
+
+        Map<String, JsonNode> byApp = new TreeMap<>();
+        responses.forEach((member, response) -> {
+            response.path("by_app").forEach(app -> {
+                String appName = app.path("app_name").asText();
+                if (member.equals(reporters.get(appName))) {
+                    byApp.put(appName, app);
+                }
+            });
+            mergeAge(merged, response);
+        });
+
+        ObjectNode overall = objectMapper.createObjectNode();
+        ObjectNode byReason = objectMapper.createObjectNode();
+        for (JsonNode app : byApp.values()) {
+            for (String count : List.of("total_servers", "compliant", "non_compliant",
+                    "newly_compliant", "newly_non_compliant")) {
+                overall.put(count, overall.path(count).asLong() + app.path(count).asLong());
+            }
+            app.path("non_compliant_by_reason").fields().forEachRemaining(reason ->
+                    byReason.put(reason.getKey(), byReason.path(reason.getKey()).asLong() + reason.getValue().asLong()));
+        }
+        ObjectNode counts = merged.putObject("overall");
+        counts.put("total_servers", overall.path("total_servers").asLong());
+        counts.put("compliant", overall.path("compliant").asLong());
+        counts.put("non_compliant", overall.path("non_compliant").asLong());
+        counts.put("compliance_percentage",
+                percentage(overall.path("compliant").asLong(), overall.path("total_servers").asLong()));
+        counts.set("non_compliant_by_reason", byReason);
+        counts.put("newly_compliant", overall.path("newly_compliant").asLong());
+        counts.put("newly_non_compliant", overall.path("newly_non_compliant").asLong());
+        merged.putArray("by_app").addAll(byApp.values());
+        addUnavailable(merged, unavailable);
+        return merged;
+    }
+
+    /**
+     * Path and encoded query of a request, to send the same request to the peers.
+     */
+    public static String pathAndQuery(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return request.getRequestURI() + (query != null ? "?" + query : "");
+    }
+
+    private Map<String, JsonNode> fetchFromPeers(String path, List<String> unavailable) {
+        return fetchFromPeers(path, null, unavailable);
+    }
+
+    /**
+     * Send the request to every other member in parallel.
+     *
+     * @param body JSON body to POST, or null to GET
+     * @param unavailable Receives the members that failed or timed out
+     * @return Parsed responses by member
+     */
+    private Map<String, JsonNode> fetchFromPeers(String path, Object body, List<String> unavailable) {
+        List<String> peers = new ArrayList<>(membership.getMembers());
+        peers.remove(membership.getSelf());
+        Map<String, JsonNode> responses = new HashMap<>();
+        Flux.fromIterable(peers)
+                .flatMap(member -> peerRequest(member, path, body)
+                        .header(FORWARDED_HEADER, "true")
+                        .retrieve()
+                        .bodyToMono(byte[].class)
+                        .timeout(peerTimeout)
+                        .map(json -> Map.entry(member, readTree(json)))
+                        .onErrorResume(e -> {
+                            log.warn("Shard {} did not answer {}: {}", member, path, e.getMessage());
+                            unavailable.add(member);
+                            return Mono.empty();
+                        }))
+                .doOnNext(entry -> responses.put(entry.getKey(), entry.getValue()))
+                .blockLast();
+        return responses;
+    }
+
+    /**
+     * GET the path from a member, or POST the body as JSON if given.
+     * The path's query is already encoded.
+     */
+    private WebClient.RequestHeadersSpec<?> peerRequest(String member, String path, Object body) {
+        URI uri = URI.create(member + path);
+        if (body == null) {
+            return peerClient.get().uri(uri);
+        }
+        return peerClient.post().uri(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body);
+    }
+
+    /**
+     * This replica's response followed by the peers', by member.
+     */
+    private Map<String, JsonNode> withPeers(JsonNode local, Map<String, JsonNode> peers) {
+        Map<String, JsonNode> responses = new LinkedHashMap<>();
+        responses.put(membership.getSelf(), local);
+        responses.putAll(peers);
+        return responses;
+    }
+
+    /**
+     * Replica each app is taken from: the first to report it, or its current
+     * owner if that owner reported it too.
+     *
+     * @param responses Responses by member, this replica's first
+     * @param appNames Adds the apps a response reports to the given list
+     */
+    private Map<String, String> reporters(Map<String, JsonNode> responses,
+                                          BiConsumer<JsonNode, List<String>> appNames) {
+        Map<String, String> reportedBy = new HashMap<>();
+        responses.forEach((member, response) -> {
+            List<String> apps = new ArrayList<>();
+            appNames.accept(response, apps);
+            for (String appName : apps) {
+                if (preferred(appName, member, reportedBy)) {
+                    reportedBy.put(appName, member);
+                }
+            }
+        });
+        return reportedBy;
+    }
+
+    /**
+     * The merged view is as old as its oldest shard, and stale if any shard is.
+     */
+    private void mergeAge(ObjectNode merged, JsonNode response) {
+        JsonNode timestamp = response.get("timestamp");
+        if (timestamp != null && isBefore(timestamp, merged.get("timestamp"))) {
+            merged.set("timestamp", timestamp);
+        }
+        if (response.path("stale").asBoolean(false)) {
+            merged.put("stale", true);
+        }
+    }
+
+    private ObjectNode sortedFields(ObjectNode node) {
+        Map<String, JsonNode> fields = new TreeMap<>();
+        node.fields().forEachRemaining(field -> fields.put(field.getKey(), field.getValue()));
+        ObjectNode sorted = objectMapper.createObjectNode();
+        sorted.setAll(fields);
+        return sorted;
+    }
+
+    private static double percentage(long part, long total) {
+        return total > 0 ? Math.round((double) part / total * 10000.0) / 100.0 : 0.0;
+    }
+
+    /**
+     * Whether a member's copy of an app should replace the one already taken:
+     * it is the first copy, or the member is the app's current owner.
+     */
+    private boolean preferred(String appName, String member, Map<String, String> reportedBy) {
+        String current = reportedBy.get(appName);
+        return current == null
+                || (member.equals(membership.ownerOf(appName)) && !current.equals(member));
+    }
+
+    private void addUnavailable(ObjectNode merged, List<String> unavailable) {
+        if (!unavailable.isEmpty()) {
+            ArrayNode shards = merged.putArray("unavailable_shards");
+            unavailable.stream().sorted().forEach(shards::add);
+        }
+    }
+
+    private static boolean isBefore(JsonNode timestamp, JsonNode other) {
+        if (other == null || !other.isTextual()) {
+            return true;
+        }
+        try {
+            return LocalDateTime.parse(timestamp.asText()).isBefore(LocalDateTime.parse(other.asText()));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private JsonNode readTree(byte[] json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid shard response: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.compliance.dashboard.shard;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replicas sharing the app estate in sharded mode, and which of them owns
+ * each app.
+ *
+ * Members are identified by their base URL and come from
+ * {@code compliance.sharding.members} or, when set, from
+ * {@code compliance.sharding.members-file} (one URL per line, {@code #}
+ * comments), which is re-read when it changes. Apps are assigned to members
+ * on a {@link ShardRing}, so a membership change only moves the apps of the
+ * member that joined or left.
+ *
+ * When sharding is disabled this replica owns every app.
+ */
+@Slf4j
+@Component
+public class ShardMembership {
+
+    @Value("${compliance.sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${compliance.sharding.self:}")
+    private String self;
+
+    @Value("${compliance.sharding.members:}")
+    private String members;
+
+    @Value("${compliance.sharding.members-file:}")
+    private String membersFile;
+
+    @Value("${compliance.sharding.virtual-nodes:128}")
+    private int virtualNodes;
+
+    private volatile ShardRing ring = new ShardRing(List.of(), 1);
+    private FileTime membersFileModified;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (self.isEmpty()) {
+            throw new IllegalStateException("compliance.sharding.self must be set to this replica's base URL");
+        }
+        self = normalize(self);
+        if (membersFile.isEmpty()) {
+            update(parse(members));
+        } else {
+            reloadMembersFile();
+        }
+    }
+
+    /**
+     * Pick up edits of the members file.
+     */
+    @Scheduled(fixedDelayString = "${compliance.sharding.members-check-interval:PT10S}")
+    public synchronized void reloadMembersFile() {
+        if (!enabled || membersFile.isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(membersFile);
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.equals(membersFileModified)) {
+                return;
+            }
+            update(parse(Files.readString(file)));
+            membersFileModified = modified;
+        } catch (IOException e) {
+            log.warn("Failed to read shard members from {}, keeping {}: {}", file, ring.getMembers(), e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Base URL of this replica, or null when sharding is disabled.
+     */
+    public String getSelf() {
+        return enabled ? self : null;
+    }
+
+    public List<String> getMembers() {
+        return ring.getMembers();
+    }
+
+    /**
+     * Whether this replica scans and serves the app.
+     */
+    public boolean owns(String appName) {
+        return !enabled || self.equals(ring.ownerOf(appName));
+    }
+
+    /**
+     * Base URL of the replica owning the app, or null when sharding is disabled
+     * or no replica is known.
+     */
+    public String ownerOf(String appName) {
+        return enabled ? ring.ownerOf(appName) : null;
+    }
+
+    /**
+     * Entries of the given map whose app this replica owns.
+     */
+    public <T> Map<String, T> owned(Map<String, T> apps) {
+        if (!enabled) {
+            return apps;
+        }
+        Map<String, T> owned = new LinkedHashMap<>();
+        apps.forEach((appName, value) -> {
+            if (owns(appName)) {
+                owned.put(appName, value);
+            }
+        });
+        return owned;
+    }
+
+    private void update(List<String> newMembers) {
+        if (newMembers.equals(ring.getMembers())) {
+            return;
+        }
+        if (!newMembers.contains(self)) {
+            log.warn("This replica ({}) is not among the shard members {} and owns no apps", self, newMembers);
+        }
+        log.info("Shard members changed from {} to {}", ring.getMembers(), newMembers);
+        ring = new ShardRing(newMembers, virtualNodes);
+    }
+
+    private static List<String> parse(String text) {
+        List<String> parsed = new ArrayList<>();
+        for (String line : text.split("[,\\n]")) {
+            int comment = line.indexOf('#');
+            String member = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (!member.isEmpty() && !parsed.contains(normalize(member))) {
+                parsed.add(normalize(member));
+            }
+        }
+        parsed.sort(null);
+        return parsed;
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
@@ -0,0 +1,79 @@
+package com.compliance.dashboard.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable consistent-hash ring over replica base URLs.
+ *
+ * Each member is placed at {@code virtualNodes} points on a 64-bit ring and
+ * owns the keys hashing up to each of its points, so shares stay even and a
+ * member joining or leaving only moves the keys of its own points (about
+ * 1/N of them).
+ */
+public final class ShardRing {
+
+    private final List<String> members;
+    /** Ring points in ascending order, with the owning member of each. */
+    private final long[] points;
+    private final String[] owners;
+
+    public ShardRing(List<String> members, int virtualNodes) {
+        this.members = List.copyOf(members);
+        int size = this.members.size() * virtualNodes;
+        long[] hashes = new long[size];
+        int[] memberOf = new int[size];
+        Integer[] order = new Integer[size];
+        for (int m = 0; m < this.members.size(); m++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int i = m * virtualNodes + v;
+                hashes[i] = hash(this.members.get(m) + '#' + v);
+                memberOf[i] = m;
+                order[i] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        points = new long[size];
+        owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = this.members.get(memberOf[order[i]]);
+        }
+    }
+
+    /**
+     * Member owning a key, or null if the ring is empty.
+     */
+    public String ownerOf(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i < points.length ? i : 0];
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 64-bit mix so
+     * similar names land far apart.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
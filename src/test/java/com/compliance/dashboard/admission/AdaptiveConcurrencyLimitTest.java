@@ -0,0 +1,54 @@
+package com.compliance.dashboard.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long BASELINE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void shrinksBelowSmallMaxWhenLatencyRises() throws InterruptedException {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 4, 8, Duration.ZERO);
+        complete(limit, 50, BASELINE_NANOS, 1.0);
+        assertEquals(4, limit.getLimit());
+
+        complete(limit, 10, BASELINE_NANOS, 1.2);
+
+        assertTrue(limit.getLimit() < 4, "limit " + limit.getLimit() + " should drop below its max");
+    }
+
+    @Test
+    void shrinksToMinWhileLatencyKeepsRisingAndRecovers() throws InterruptedException {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 16, 32, Duration.ZERO);
+        complete(limit, 50, BASELINE_NANOS, 1.0);
+
+        long slowNanos = complete(limit, 40, BASELINE_NANOS, 1.2);
+        assertEquals(2, limit.getLimit());
+
+        // Latency back at the long-term average, which followed the slow period up
+        complete(limit, 100, slowNanos / 4, 1.0);
+        assertEquals(16, limit.getLimit());
+    }
+
+    /**
+     * Run requests one at a time, each slower than the last by the given factor.
+     *
+     * @return Latency of the last request
+     */
+    private static long complete(AdaptiveConcurrencyLimit limit, int requests, long latencyNanos, double growth)
+            throws InterruptedException {
+        double latency = latencyNanos;
+        for (int i = 0; i < requests; i++) {
+            latency *= growth;
+            assertTrue(limit.acquire());
+            limit.release((long) latency);
+        }
+        return (long) latency;
+    }
+}